@@ -1,6 +1,14 @@
 package tech.jhipster.sample.config;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+import tech.jhipster.sample.config.r2dbc.QueryStats.BudgetAction;
+import tech.jhipster.sample.config.r2dbc.ReadReplicaRoutingConnectionFactory.Selection;
 
 /**
  * Properties specific to Sample Webflux Psql.
@@ -9,4 +17,452 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  * See {@link tech.jhipster.config.JHipsterProperties} for a good example.
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
-public class ApplicationProperties {}
+@Validated
+public class ApplicationProperties {
+
+    @Valid
+    private final Database database = new Database();
+
+    @Valid
+    private final Blog blog = new Blog();
+
+    private final Security security = new Security();
+
+    @Valid
+    private final UserCleanup userCleanup = new UserCleanup();
+
+    public Database getDatabase() {
+        return database;
+    }
+
+    public Security getSecurity() {
+        return security;
+    }
+
+    public Blog getBlog() {
+        return blog;
+    }
+
+    public UserCleanup getUserCleanup() {
+        return userCleanup;
+    }
+
+    public static class Database {
+
+        private final Pool pool = new Pool();
+
+        private final Replicas replicas = new Replicas();
+
+        private final QueryMetrics queryMetrics = new QueryMetrics();
+
+        private final QueryBudget queryBudget = new QueryBudget();
+
+        private int selectCacheSize = 500;
+
+        @Min(1)
+        private int fetchSize = 100;
+
+        @Min(1)
+        private int linkTableChunkSize = 500;
+
+        public Pool getPool() {
+            return pool;
+        }
+
+        public Replicas getReplicas() {
+            return replicas;
+        }
+
+        public QueryMetrics getQueryMetrics() {
+            return queryMetrics;
+        }
+
+        public QueryBudget getQueryBudget() {
+            return queryBudget;
+        }
+
+        public int getFetchSize() {
+            return fetchSize;
+        }
+
+        public void setFetchSize(int fetchSize) {
+            this.fetchSize = fetchSize;
+        }
+
+        public int getLinkTableChunkSize() {
+            return linkTableChunkSize;
+        }
+
+        public void setLinkTableChunkSize(int linkTableChunkSize) {
+            this.linkTableChunkSize = linkTableChunkSize;
+        }
+
+        public int getSelectCacheSize() {
+            return selectCacheSize;
+        }
+
+        public void setSelectCacheSize(int selectCacheSize) {
+            this.selectCacheSize = selectCacheSize;
+        }
+
+        public static class Pool {
+
+            private int initialSize = 10;
+
+            private int maxSize = 10;
+
+            private Duration maxIdleTime = Duration.ofMinutes(30);
+
+            private Duration maxAcquireTime = Duration.ofSeconds(5);
+
+            private String validationQuery;
+
+            public int getInitialSize() {
+                return initialSize;
+            }
+
+            public void setInitialSize(int initialSize) {
+                this.initialSize = initialSize;
+            }
+
+            public int getMaxSize() {
+                return maxSize;
+            }
+
+            public void setMaxSize(int maxSize) {
+                this.maxSize = maxSize;
+            }
+
+            public Duration getMaxIdleTime() {
+                return maxIdleTime;
+            }
+
+            public void setMaxIdleTime(Duration maxIdleTime) {
+                this.maxIdleTime = maxIdleTime;
+            }
+
+            public Duration getMaxAcquireTime() {
+                return maxAcquireTime;
+            }
+
+            public void setMaxAcquireTime(Duration maxAcquireTime) {
+                this.maxAcquireTime = maxAcquireTime;
+            }
+
+            public String getValidationQuery() {
+                return validationQuery;
+            }
+
+            public void setValidationQuery(String validationQuery) {
+                this.validationQuery = validationQuery;
+            }
+        }
+
+        public static class Replicas {
+
+            private List<String> urls = new ArrayList<>();
+
+            private Selection selection = Selection.ROUND_ROBIN;
+
+            private Duration retryInterval = Duration.ofSeconds(30);
+
+            public List<String> getUrls() {
+                return urls;
+            }
+
+            public void setUrls(List<String> urls) {
+                this.urls = urls;
+            }
+
+            public Selection getSelection() {
+                return selection;
+            }
+
+            public void setSelection(Selection selection) {
+                this.selection = selection;
+            }
+
+            public Duration getRetryInterval() {
+                return retryInterval;
+            }
+
+            public void setRetryInterval(Duration retryInterval) {
+                this.retryInterval = retryInterval;
+            }
+        }
+
+        public static class QueryMetrics {
+
+            private boolean enabled = true;
+
+            private Duration slowQueryThreshold = Duration.ofMillis(500);
+
+            private boolean histogram = false;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public Duration getSlowQueryThreshold() {
+                return slowQueryThreshold;
+            }
+
+            public void setSlowQueryThreshold(Duration slowQueryThreshold) {
+                this.slowQueryThreshold = slowQueryThreshold;
+            }
+
+            public boolean isHistogram() {
+                return histogram;
+            }
+
+            public void setHistogram(boolean histogram) {
+                this.histogram = histogram;
+            }
+        }
+
+        public static class QueryBudget {
+
+            private int maxStatements = 50;
+
+            private BudgetAction action = BudgetAction.LOG;
+
+            private boolean serverTiming = false;
+
+            private boolean metrics = true;
+
+            private boolean histogram = false;
+
+            public int getMaxStatements() {
+                return maxStatements;
+            }
+
+            public void setMaxStatements(int maxStatements) {
+                this.maxStatements = maxStatements;
+            }
+
+            public BudgetAction getAction() {
+                return action;
+            }
+
+            public void setAction(BudgetAction action) {
+                this.action = action;
+            }
+
+            public boolean isServerTiming() {
+                return serverTiming;
+            }
+
+            public void setServerTiming(boolean serverTiming) {
+                this.serverTiming = serverTiming;
+            }
+
+            public boolean isMetrics() {
+                return metrics;
+            }
+
+            public void setMetrics(boolean metrics) {
+                this.metrics = metrics;
+            }
+
+            public boolean isHistogram() {
+                return histogram;
+            }
+
+            public void setHistogram(boolean histogram) {
+                this.histogram = histogram;
+            }
+        }
+    }
+
+    public static class Blog {
+
+        private CountMode countMode = CountMode.EXACT;
+
+        private Duration countCacheTtl = Duration.ofSeconds(10);
+
+        @Min(1)
+        private int bulkChunkSize = 100;
+
+        private FetchStrategy userFetch = FetchStrategy.JOIN;
+
+        private final Cache cache = new Cache();
+
+        public Cache getCache() {
+            return cache;
+        }
+
+        public CountMode getCountMode() {
+            return countMode;
+        }
+
+        public void setCountMode(CountMode countMode) {
+            this.countMode = countMode;
+        }
+
+        public Duration getCountCacheTtl() {
+            return countCacheTtl;
+        }
+
+        public void setCountCacheTtl(Duration countCacheTtl) {
+            this.countCacheTtl = countCacheTtl;
+        }
+
+        public int getBulkChunkSize() {
+            return bulkChunkSize;
+        }
+
+        public void setBulkChunkSize(int bulkChunkSize) {
+            this.bulkChunkSize = bulkChunkSize;
+        }
+
+        public FetchStrategy getUserFetch() {
+            return userFetch;
+        }
+
+        public void setUserFetch(FetchStrategy userFetch) {
+            this.userFetch = userFetch;
+        }
+
+        public static class Cache {
+
+            private boolean enabled = false;
+
+            private Duration timeToLive = Duration.ofSeconds(60);
+
+            private int maxSize = 1000;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public Duration getTimeToLive() {
+                return timeToLive;
+            }
+
+            public void setTimeToLive(Duration timeToLive) {
+                this.timeToLive = timeToLive;
+            }
+
+            public int getMaxSize() {
+                return maxSize;
+            }
+
+            public void setMaxSize(int maxSize) {
+                this.maxSize = maxSize;
+            }
+        }
+    }
+
+    public static class Security {
+
+        private int jwtCacheSize = 10_000;
+
+        private final PasswordHashing passwordHashing = new PasswordHashing();
+
+        private final UserDetailsCache userDetailsCache = new UserDetailsCache();
+
+        public PasswordHashing getPasswordHashing() {
+            return passwordHashing;
+        }
+
+        public UserDetailsCache getUserDetailsCache() {
+            return userDetailsCache;
+        }
+
+        public int getJwtCacheSize() {
+            return jwtCacheSize;
+        }
+
+        public void setJwtCacheSize(int jwtCacheSize) {
+            this.jwtCacheSize = jwtCacheSize;
+        }
+
+        public static class PasswordHashing {
+
+            private int threads = Runtime.getRuntime().availableProcessors();
+
+            private int queueCapacity = 256;
+
+            public int getThreads() {
+                return threads;
+            }
+
+            public void setThreads(int threads) {
+                this.threads = threads;
+            }
+
+            public int getQueueCapacity() {
+                return queueCapacity;
+            }
+
+            public void setQueueCapacity(int queueCapacity) {
+                this.queueCapacity = queueCapacity;
+            }
+        }
+
+        public static class UserDetailsCache {
+
+            private boolean enabled = false;
+
+            private Duration timeToLive = Duration.ofSeconds(30);
+
+            private int maxSize = 1000;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public Duration getTimeToLive() {
+                return timeToLive;
+            }
+
+            public void setTimeToLive(Duration timeToLive) {
+                this.timeToLive = timeToLive;
+            }
+
+            public int getMaxSize() {
+                return maxSize;
+            }
+
+            public void setMaxSize(int maxSize) {
+                this.maxSize = maxSize;
+            }
+        }
+    }
+
+    public static class UserCleanup {
+
+        @Min(1)
+        private int chunkSize = 500;
+
+        private Duration pause = Duration.ofMillis(200);
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public Duration getPause() {
+            return pause;
+        }
+
+        public void setPause(Duration pause) {
+            this.pause = pause;
+        }
+    }
+}
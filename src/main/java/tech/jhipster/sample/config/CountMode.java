@@ -0,0 +1,26 @@
+package tech.jhipster.sample.config;
+
+/**
+ * How the total number of elements of a paginated listing is computed.
+ */
+public enum CountMode {
+    /**
+     * Count the rows of the table on each request.
+     */
+    EXACT,
+
+    /**
+     * Reuse a count of the rows for a while, adjusted as entities are created and dropped on deletion.
+     */
+    CACHED,
+
+    /**
+     * Use the row estimate of the database statistics, falling back to an exact count when there are none.
+     */
+    ESTIMATE,
+
+    /**
+     * Don't count the rows.
+     */
+    NONE,
+}
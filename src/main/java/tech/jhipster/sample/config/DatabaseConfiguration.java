@@ -1,6 +1,13 @@
 package tech.jhipster.sample.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
 import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Option;
 import java.sql.SQLException;
 import java.time.Duration;
 import java.time.Instant;
@@ -14,6 +21,8 @@ import java.util.Collections;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.metrics.r2dbc.ConnectionPoolMetrics;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
@@ -31,9 +40,16 @@ import org.springframework.data.r2dbc.query.UpdateMapper;
 import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
 import org.springframework.data.relational.core.dialect.RenderContextFactory;
 import org.springframework.data.relational.core.sql.render.SqlRenderer;
+import org.springframework.transaction.ReactiveTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.util.StringUtils;
 import tech.jhipster.config.JHipsterConstants;
 import tech.jhipster.config.h2.H2ConfigurationHelper;
+import tech.jhipster.sample.config.r2dbc.InstrumentedConnectionFactory;
+import tech.jhipster.sample.config.r2dbc.MeteredConnectionPool;
+import tech.jhipster.sample.config.r2dbc.QueryNameRepositoryPostProcessor;
+import tech.jhipster.sample.config.r2dbc.ReadOnlyRoutingTransactionManager;
+import tech.jhipster.sample.config.r2dbc.ReadReplicaRoutingConnectionFactory;
 
 @Configuration
 @EnableR2dbcRepositories("tech.jhipster.sample.repository")
@@ -76,6 +92,130 @@ public class DatabaseConfiguration {
         return String.valueOf(port);
     }
 
+    /**
+     * Pooled {@link ConnectionFactory} for {@code spring.r2dbc.url}, sized with the {@code application.database.pool} properties.
+     * <p>
+     * Acquire latency is recorded by {@link MeteredConnectionPool}, and the pool usage gauges by {@link ConnectionPoolMetrics},
+     * tagged with the name of the pool.
+     * <p>
+     * With {@code application.database.replicas.urls}, the read-only transactions are routed to replicas, each with its own
+     * pool, by a {@link ReadReplicaRoutingConnectionFactory}.
+     * <p>
+     * With {@code application.database.query-metrics.enabled}, the statements are timed by an {@link InstrumentedConnectionFactory}.
+     *
+     * @return the pooled connection factory.
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionFactory connectionFactory(
+        R2dbcProperties r2dbcProperties,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        ApplicationProperties.Database database = applicationProperties.getDatabase();
+        MeteredConnectionPool primary = createPool("connectionFactory", r2dbcProperties.getUrl(), r2dbcProperties, database, meterRegistry);
+        return instrument(route(primary, r2dbcProperties, database, meterRegistry), database.getQueryMetrics(), meterRegistry);
+    }
+
+    private ConnectionFactory route(
+        MeteredConnectionPool primary,
+        R2dbcProperties r2dbcProperties,
+        ApplicationProperties.Database database,
+        MeterRegistry meterRegistry
+    ) {
+        List<String> replicaUrls = database.getReplicas().getUrls();
+        if (replicaUrls.isEmpty()) {
+            return primary;
+        }
+        List<MeteredConnectionPool> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            String name = "replica" + i;
+            replicas.add(createPool(name, replicaUrls.get(i), r2dbcProperties, database, meterRegistry));
+        }
+        log.debug("Routing the read-only transactions to {} replicas", replicas.size());
+        ApplicationProperties.Database.Replicas replicasProperties = database.getReplicas();
+        return new ReadReplicaRoutingConnectionFactory(
+            primary,
+            replicas,
+            replicasProperties.getSelection(),
+            replicasProperties.getRetryInterval()
+        );
+    }
+
+    private static ConnectionFactory instrument(
+        ConnectionFactory connectionFactory,
+        ApplicationProperties.Database.QueryMetrics queryMetrics,
+        MeterRegistry meterRegistry
+    ) {
+        if (!queryMetrics.isEnabled()) {
+            return connectionFactory;
+        }
+        return new InstrumentedConnectionFactory(
+            connectionFactory,
+            meterRegistry,
+            queryMetrics.getSlowQueryThreshold(),
+            queryMetrics.isHistogram()
+        );
+    }
+
+    /**
+     * Names the queries of the repositories in the metrics of the {@link InstrumentedConnectionFactory}.
+     *
+     * @return the post-processor of the repository factory beans.
+     */
+    @Bean
+    public static QueryNameRepositoryPostProcessor queryNameRepositoryPostProcessor() {
+        return new QueryNameRepositoryPostProcessor();
+    }
+
+    /**
+     * Transaction manager which routes the read-only transactions to the replicas, when there are any.
+     *
+     * @param connectionFactory the connection factory.
+     * @return the transaction manager.
+     */
+    @Bean
+    public ReactiveTransactionManager transactionManager(ConnectionFactory connectionFactory) {
+        return new ReadOnlyRoutingTransactionManager(connectionFactory);
+    }
+
+    private MeteredConnectionPool createPool(
+        String name,
+        String url,
+        R2dbcProperties r2dbcProperties,
+        ApplicationProperties.Database database,
+        MeterRegistry meterRegistry
+    ) {
+        ApplicationProperties.Database.Pool pool = database.getPool();
+        ConnectionFactory connectionFactory = createConnectionFactory(url, r2dbcProperties);
+        ConnectionPoolConfiguration.Builder configuration = ConnectionPoolConfiguration
+            .builder(connectionFactory)
+            .name(name)
+            .initialSize(pool.getInitialSize())
+            .maxSize(pool.getMaxSize())
+            .maxIdleTime(pool.getMaxIdleTime())
+            .maxAcquireTime(pool.getMaxAcquireTime());
+        if (StringUtils.hasText(pool.getValidationQuery())) {
+            configuration.validationQuery(pool.getValidationQuery());
+        }
+        log.debug("Configuring R2DBC connection pool {} with max size {}", name, pool.getMaxSize());
+        ConnectionPool connectionPool = new ConnectionPool(configuration.build());
+        // Spring Boot only binds the gauges of the ConnectionPool beans, which the decorated pools are not
+        new ConnectionPoolMetrics(connectionPool, name, Tags.empty()).bindTo(meterRegistry);
+        return new MeteredConnectionPool(connectionPool, name, meterRegistry);
+    }
+
+    private static ConnectionFactory createConnectionFactory(String url, R2dbcProperties r2dbcProperties) {
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(url).mutate();
+        if (StringUtils.hasText(r2dbcProperties.getUsername())) {
+            options.option(ConnectionFactoryOptions.USER, r2dbcProperties.getUsername());
+        }
+        if (StringUtils.hasText(r2dbcProperties.getPassword())) {
+            options.option(ConnectionFactoryOptions.PASSWORD, r2dbcProperties.getPassword());
+        }
+        r2dbcProperties.getProperties().forEach((key, value) -> options.option(Option.valueOf(key), value));
+        return ConnectionFactories.get(options.build());
+    }
+
     // LocalDateTime seems to be the only type that is supported across all drivers atm
     // See https://github.com/r2dbc/r2dbc-h2/pull/139 https://github.com/mirromutth/r2dbc-mysql/issues/105
     @Bean
@@ -0,0 +1,16 @@
+package tech.jhipster.sample.config;
+
+/**
+ * How the many-to-one relationships of an entity are read with it.
+ */
+public enum FetchStrategy {
+    /**
+     * The related entity is joined, so its columns are read again for every row.
+     */
+    JOIN,
+
+    /**
+     * The rows are read alone, then the distinct related entities of each page are read with one {@code IN} query.
+     */
+    BATCH,
+}
@@ -2,9 +2,16 @@ package tech.jhipster.sample.config;
 
 import static org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers.pathMatchers;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpMethod;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.security.authentication.ReactiveAuthenticationManager;
 import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
 import org.springframework.security.config.annotation.method.configuration.EnableReactiveMethodSecurity;
@@ -19,6 +26,8 @@ import org.springframework.security.web.server.header.ReferrerPolicyServerHttpHe
 import org.springframework.security.web.server.util.matcher.NegatedServerWebExchangeMatcher;
 import org.springframework.security.web.server.util.matcher.OrServerWebExchangeMatcher;
 import org.zalando.problem.spring.webflux.advice.security.SecurityProblemSupport;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 import tech.jhipster.sample.security.AuthoritiesConstants;
 import tech.jhipster.sample.security.jwt.JWTFilter;
 import tech.jhipster.sample.security.jwt.TokenProvider;
@@ -35,14 +44,22 @@ public class SecurityConfiguration {
 
     private final SecurityProblemSupport problemSupport;
 
+    private final ApplicationProperties applicationProperties;
+
+    private final MeterRegistry meterRegistry;
+
     public SecurityConfiguration(
         ReactiveUserDetailsService userDetailsService,
         TokenProvider tokenProvider,
-        SecurityProblemSupport problemSupport
+        SecurityProblemSupport problemSupport,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
     ) {
         this.userDetailsService = userDetailsService;
         this.tokenProvider = tokenProvider;
         this.problemSupport = problemSupport;
+        this.applicationProperties = applicationProperties;
+        this.meterRegistry = meterRegistry;
     }
 
     @Bean
@@ -50,12 +67,35 @@ public class SecurityConfiguration {
         return new BCryptPasswordEncoder();
     }
 
+    /**
+     * The scheduler hashing and verifying passwords, so that BCrypt cannot starve the other tasks.
+     * <p>
+     * A hash is rejected with a {@link java.util.concurrent.RejectedExecutionException}, translated to a 503, when all
+     * the threads are busy and the queue is full. The queue depth and the hash latency are published as the
+     * {@code executor.*} metrics of the {@code password.hashing} executor.
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler passwordHashingScheduler() {
+        ApplicationProperties.Security.PasswordHashing passwordHashing = applicationProperties.getSecurity().getPasswordHashing();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            passwordHashing.getThreads(),
+            passwordHashing.getThreads(),
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(passwordHashing.getQueueCapacity()),
+            new CustomizableThreadFactory("password-hashing-")
+        );
+        ExecutorService timedExecutor = ExecutorServiceMetrics.monitor(meterRegistry, executor, "password.hashing");
+        return Schedulers.fromExecutorService(timedExecutor, "password-hashing");
+    }
+
     @Bean
     public ReactiveAuthenticationManager reactiveAuthenticationManager() {
         UserDetailsRepositoryReactiveAuthenticationManager authenticationManager = new UserDetailsRepositoryReactiveAuthenticationManager(
             userDetailsService
         );
         authenticationManager.setPasswordEncoder(passwordEncoder());
+        authenticationManager.setScheduler(passwordHashingScheduler());
         return authenticationManager;
     }
 
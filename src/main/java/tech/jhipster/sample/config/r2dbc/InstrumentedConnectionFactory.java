@@ -0,0 +1,477 @@
+package tech.jhipster.sample.config.r2dbc;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.spi.Batch;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionMetadata;
+import io.r2dbc.spi.IsolationLevel;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Statement;
+import io.r2dbc.spi.ValidationDepth;
+import io.r2dbc.spi.Wrapped;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.r2dbc.connection.DelegatingConnectionFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.util.context.ContextView;
+
+/**
+ * Decorates a {@link ConnectionFactory} to time the statements, and count the rows they fetch or update.
+ * <p>
+ * The metrics are tagged with the name of the query, read from the {@link #QUERY_NAME_KEY} entry of the Reactor context,
+ * which {@link QueryNameRepositoryPostProcessor} sets to the repository method. The other statements are tagged with
+ * their operation and table, like {@code select blog}. A statement is recorded once for each of its results, when the
+ * result has been read, so the time includes the fetching of its rows. The results of a batched statement are read one
+ * after the other, so each one is timed from the end of the previous one, as are the statements of a {@link Batch}.
+ * The meters are registered once by query, and kept.
+ * <p>
+ * The statements slower than the threshold are logged with their SQL and the types of their bind parameters, without
+ * their values.
+ * <p>
+ * The statements are also counted in the {@link QueryStats} of the {@link QueryStats#CONTEXT_KEY} entry of the Reactor
+ * context, if there is one, which may fail them when they are over its budget.
+ */
+public class InstrumentedConnectionFactory extends DelegatingConnectionFactory implements Disposable {
+
+    public static final String QUERY_METRIC_NAME = "r2dbc.query";
+
+    public static final String ROWS_METRIC_NAME = "r2dbc.query.rows";
+
+    /**
+     * The key of the Reactor context entry holding the name of the queries.
+     */
+    public static final String QUERY_NAME_KEY = InstrumentedConnectionFactory.class.getName() + ".QUERY_NAME";
+
+    private static final Pattern TEMPLATE_PATTERN = Pattern.compile(
+        "^\\s*(?:(select|delete)\\b.*?\\bfrom|(insert)\\s+into|(update))\\s+([\\w.\"]+)",
+        Pattern.CASE_INSENSITIVE | Pattern.DOTALL
+    );
+
+    private final Logger log = LoggerFactory.getLogger(InstrumentedConnectionFactory.class);
+
+    private final MeterRegistry meterRegistry;
+
+    private final Duration slowQueryThreshold;
+
+    private final boolean histogram;
+
+    private final Map<String, Map<String, Timer>> timers = new ConcurrentHashMap<>();
+
+    private final Map<String, Map<String, DistributionSummary>> rowSummaries = new ConcurrentHashMap<>();
+
+    /**
+     * @param connectionFactory the decorated connection factory.
+     * @param meterRegistry the registry of the query metrics.
+     * @param slowQueryThreshold the time above which the statements are logged.
+     * @param histogram true to publish the histogram buckets of the metrics, to compute percentiles across instances.
+     */
+    public InstrumentedConnectionFactory(
+        ConnectionFactory connectionFactory,
+        MeterRegistry meterRegistry,
+        Duration slowQueryThreshold,
+        boolean histogram
+    ) {
+        super(connectionFactory);
+        this.meterRegistry = meterRegistry;
+        this.slowQueryThreshold = slowQueryThreshold;
+        this.histogram = histogram;
+    }
+
+    @Override
+    public Mono<? extends Connection> create() {
+        return super.create().map(InstrumentedConnection::new);
+    }
+
+    @Override
+    public void dispose() {
+        if (unwrap() instanceof Disposable) {
+            ((Disposable) unwrap()).dispose();
+        }
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return unwrap() instanceof Disposable && ((Disposable) unwrap()).isDisposed();
+    }
+
+    /**
+     * The tag of the statements without query name: their operation and their first table.
+     */
+    static String template(String sql) {
+        Matcher matcher = TEMPLATE_PATTERN.matcher(sql);
+        if (!matcher.find()) {
+            return "other";
+        }
+        String operation = matcher.group(1);
+        for (int group = 2; operation == null; group++) {
+            operation = matcher.group(group);
+        }
+        return (operation + " " + matcher.group(4).replace("\"", "")).toLowerCase(Locale.ROOT);
+    }
+
+    private void record(Execution execution, String outcome, String rowType, long rows) {
+        long duration = execution.elapsed();
+        if (execution.stats != null) {
+            execution.stats.statementCompleted(rows, duration);
+        }
+        timer(execution.query, outcome).record(duration, TimeUnit.NANOSECONDS);
+        if (rowType != null) {
+            rowSummary(execution.query, rowType).record(rows);
+        }
+        if (duration >= slowQueryThreshold.toNanos()) {
+            log.warn(
+                "Slow query {} took {} ms for {} rows: {} with bindings {}",
+                execution.query,
+                TimeUnit.NANOSECONDS.toMillis(duration),
+                rows,
+                execution.sql,
+                execution.bindings
+            );
+        }
+    }
+
+    private Timer timer(String query, String outcome) {
+        Map<String, Timer> byOutcome = timers.computeIfAbsent(query, key -> new ConcurrentHashMap<>());
+        Timer timer = byOutcome.get(outcome);
+        if (timer != null) {
+            return timer;
+        }
+        return byOutcome.computeIfAbsent(
+            outcome,
+            key ->
+                Timer
+                    .builder(QUERY_METRIC_NAME)
+                    .description("Time spent executing the statements and reading their results")
+                    .tag("query", query)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram(histogram)
+                    .register(meterRegistry)
+        );
+    }
+
+    private DistributionSummary rowSummary(String query, String rowType) {
+        Map<String, DistributionSummary> byType = rowSummaries.computeIfAbsent(query, key -> new ConcurrentHashMap<>());
+        DistributionSummary summary = byType.get(rowType);
+        if (summary != null) {
+            return summary;
+        }
+        return byType.computeIfAbsent(
+            rowType,
+            key ->
+                DistributionSummary
+                    .builder(ROWS_METRIC_NAME)
+                    .description("Rows fetched or updated by the statements")
+                    .baseUnit("rows")
+                    .tag("query", query)
+                    .tag("type", rowType)
+                    .publishPercentileHistogram(histogram)
+                    .register(meterRegistry)
+        );
+    }
+
+    /**
+     * The execution of a statement, shared by its results.
+     */
+    private static final class Execution {
+
+        private final String query;
+
+        private final String sql;
+
+        private final String bindings;
+
+        private final QueryStats stats;
+
+        // the start of the execution, then the end of the last recorded result, shared by the statements of a batch
+        private final AtomicLong start;
+
+        Execution(String query, String sql, String bindings, QueryStats stats, AtomicLong start) {
+            this.query = query;
+            this.sql = sql;
+            this.bindings = bindings;
+            this.stats = stats;
+            this.start = start;
+        }
+
+        /**
+         * @return the time since the start of the execution, or since the previous result.
+         */
+        long elapsed() {
+            long now = System.nanoTime();
+            return now - start.getAndSet(now);
+        }
+    }
+
+    private final class InstrumentedConnection implements Connection, Wrapped<Connection> {
+
+        private final Connection delegate;
+
+        InstrumentedConnection(Connection delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Statement createStatement(String sql) {
+            return new InstrumentedStatement(delegate.createStatement(sql), sql);
+        }
+
+        @Override
+        public Publisher<Void> beginTransaction() {
+            return delegate.beginTransaction();
+        }
+
+        @Override
+        public Publisher<Void> close() {
+            return delegate.close();
+        }
+
+        @Override
+        public Publisher<Void> commitTransaction() {
+            return delegate.commitTransaction();
+        }
+
+        @Override
+        public Batch createBatch() {
+            return new InstrumentedBatch(delegate.createBatch());
+        }
+
+        @Override
+        public Publisher<Void> createSavepoint(String name) {
+            return delegate.createSavepoint(name);
+        }
+
+        @Override
+        public boolean isAutoCommit() {
+            return delegate.isAutoCommit();
+        }
+
+        @Override
+        public ConnectionMetadata getMetadata() {
+            return delegate.getMetadata();
+        }
+
+        @Override
+        public IsolationLevel getTransactionIsolationLevel() {
+            return delegate.getTransactionIsolationLevel();
+        }
+
+        @Override
+        public Publisher<Void> releaseSavepoint(String name) {
+            return delegate.releaseSavepoint(name);
+        }
+
+        @Override
+        public Publisher<Void> rollbackTransaction() {
+            return delegate.rollbackTransaction();
+        }
+
+        @Override
+        public Publisher<Void> rollbackTransactionToSavepoint(String name) {
+            return delegate.rollbackTransactionToSavepoint(name);
+        }
+
+        @Override
+        public Publisher<Void> setAutoCommit(boolean autoCommit) {
+            return delegate.setAutoCommit(autoCommit);
+        }
+
+        @Override
+        public Publisher<Void> setTransactionIsolationLevel(IsolationLevel isolationLevel) {
+            return delegate.setTransactionIsolationLevel(isolationLevel);
+        }
+
+        @Override
+        public Publisher<Boolean> validate(ValidationDepth depth) {
+            return delegate.validate(depth);
+        }
+
+        @Override
+        public Connection unwrap() {
+            return delegate;
+        }
+    }
+
+    private final class InstrumentedStatement implements Statement {
+
+        private final Statement delegate;
+
+        private final String sql;
+
+        // the types of the parameters of the last binding, by index or name
+        private final Map<String, String> bindings = new TreeMap<>();
+
+        private int bindingCount = 1;
+
+        InstrumentedStatement(Statement delegate, String sql) {
+            this.delegate = delegate;
+            this.sql = sql;
+        }
+
+        @Override
+        public Statement add() {
+            delegate.add();
+            bindings.clear();
+            bindingCount++;
+            return this;
+        }
+
+        @Override
+        public Statement bind(int index, Object value) {
+            delegate.bind(index, value);
+            bindings.put("$" + (index + 1), value.getClass().getSimpleName());
+            return this;
+        }
+
+        @Override
+        public Statement bind(String name, Object value) {
+            delegate.bind(name, value);
+            bindings.put(name, value.getClass().getSimpleName());
+            return this;
+        }
+
+        @Override
+        public Statement bindNull(int index, Class<?> type) {
+            delegate.bindNull(index, type);
+            bindings.put("$" + (index + 1), "null " + type.getSimpleName());
+            return this;
+        }
+
+        @Override
+        public Statement bindNull(String name, Class<?> type) {
+            delegate.bindNull(name, type);
+            bindings.put(name, "null " + type.getSimpleName());
+            return this;
+        }
+
+        @Override
+        public Statement returnGeneratedValues(String... columns) {
+            delegate.returnGeneratedValues(columns);
+            return this;
+        }
+
+        @Override
+        public Statement fetchSize(int rows) {
+            delegate.fetchSize(rows);
+            return this;
+        }
+
+        @Override
+        public Publisher<? extends Result> execute() {
+            String shapes = bindingCount > 1 ? bindings + " x " + bindingCount : bindings.toString();
+            return Flux.deferContextual(
+                context -> {
+                    String query = queryName(context);
+                    QueryStats stats = context.getOrDefault(QueryStats.CONTEXT_KEY, null);
+                    if (stats != null && !stats.statementStarted(query)) {
+                        return Flux.<Result>error(new QueryBudgetExceededException(stats));
+                    }
+                    Execution execution = new Execution(query, sql, shapes, stats, new AtomicLong(System.nanoTime()));
+                    return Flux
+                        .from(delegate.execute())
+                        .<Result>map(result -> new InstrumentedResult(result, execution))
+                        .doOnError(e -> record(execution, "error", null, 0));
+                }
+            );
+        }
+
+        private String queryName(ContextView context) {
+            return context.<String>getOrEmpty(QUERY_NAME_KEY).orElseGet(() -> template(sql));
+        }
+    }
+
+    /**
+     * A batch of statements without bindings, each of them with its own result.
+     */
+    private final class InstrumentedBatch implements Batch {
+
+        private final Batch delegate;
+
+        private final List<String> sqls = new ArrayList<>();
+
+        InstrumentedBatch(Batch delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Batch add(String sql) {
+            delegate.add(sql);
+            sqls.add(sql);
+            return this;
+        }
+
+        @Override
+        public Publisher<? extends Result> execute() {
+            return Flux.deferContextual(
+                context -> {
+                    QueryStats stats = context.getOrDefault(QueryStats.CONTEXT_KEY, null);
+                    AtomicLong start = new AtomicLong(System.nanoTime());
+                    List<Execution> executions = new ArrayList<>(sqls.size());
+                    for (String sql : sqls) {
+                        String query = context.<String>getOrEmpty(QUERY_NAME_KEY).orElseGet(() -> template(sql));
+                        if (stats != null && !stats.statementStarted(query)) {
+                            return Flux.<Result>error(new QueryBudgetExceededException(stats));
+                        }
+                        executions.add(new Execution(query, sql, "{}", stats, start));
+                    }
+                    return Flux
+                        .from(delegate.execute())
+                        .index()
+                        .<Result>map(result -> new InstrumentedResult(result.getT2(), executions.get(result.getT1().intValue())))
+                        .doOnError(e -> record(executions.get(0), "error", null, 0));
+                }
+            );
+        }
+    }
+
+    private final class InstrumentedResult implements Result {
+
+        private final Result delegate;
+
+        private final Execution execution;
+
+        private final AtomicLong rows = new AtomicLong();
+
+        InstrumentedResult(Result delegate, Execution execution) {
+            this.delegate = delegate;
+            this.execution = execution;
+        }
+
+        @Override
+        public Publisher<Integer> getRowsUpdated() {
+            return Mono.from(delegate.getRowsUpdated()).doOnNext(rows::addAndGet).doFinally(signal -> record(signal, "updated"));
+        }
+
+        @Override
+        public <T> Publisher<T> map(BiFunction<Row, RowMetadata, ? extends T> mappingFunction) {
+            return Flux
+                .<T>from(delegate.map(mappingFunction))
+                .doOnNext(row -> rows.incrementAndGet())
+                .doFinally(signal -> record(signal, "fetched"));
+        }
+
+        private void record(SignalType signal, String rowType) {
+            InstrumentedConnectionFactory.this.record(execution, signal == SignalType.ON_ERROR ? "error" : "success", rowType, rows.get());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package tech.jhipster.sample.config.r2dbc;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.PoolMetrics;
+import io.r2dbc.spi.Connection;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.springframework.r2dbc.connection.DelegatingConnectionFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+/**
+ * Decorates a {@link ConnectionPool} to record how long callers wait to acquire a connection.
+ * <p>
+ * The pool gauges (acquired, allocated, idle, pending) are not published by Spring Boot, which only binds the
+ * {@link ConnectionPool} beans: they are bound by {@code DatabaseConfiguration} with {@code ConnectionPoolMetrics}.
+ */
+public class MeteredConnectionPool extends DelegatingConnectionFactory implements Disposable {
+
+    public static final String ACQUIRE_METRIC_NAME = "r2dbc.pool.acquire";
+
+    private final ConnectionPool pool;
+
+    private final Timer acquireSuccess;
+
+    private final Timer acquireFailure;
+
+    public MeteredConnectionPool(ConnectionPool pool, String name, MeterRegistry meterRegistry) {
+        super(pool);
+        this.pool = pool;
+        this.acquireSuccess = acquireTimer(name, "success", meterRegistry);
+        this.acquireFailure = acquireTimer(name, "error", meterRegistry);
+    }
+
+    private static Timer acquireTimer(String name, String outcome, MeterRegistry meterRegistry) {
+        return Timer
+            .builder(ACQUIRE_METRIC_NAME)
+            .description("Time spent waiting for a connection from the pool")
+            .tag("name", name)
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<? extends Connection> create() {
+        return Mono.defer(
+            () -> {
+                long start = System.nanoTime();
+                return pool
+                    .create()
+                    .doOnSuccess(connection -> acquireSuccess.record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                    .doOnError(e -> acquireFailure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+            }
+        );
+    }
+
+    /**
+     * @return the metrics of the underlying pool.
+     */
+    public Optional<PoolMetrics> getMetrics() {
+        return pool.getMetrics();
+    }
+
+    @Override
+    public void dispose() {
+        pool.dispose();
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return pool.isDisposed();
+    }
+}
@@ -0,0 +1,18 @@
+package tech.jhipster.sample.config.r2dbc;
+
+/**
+ * Thrown when a request executes more statements than its budget, with the {@link QueryStats.BudgetAction#FAIL} action.
+ */
+public class QueryBudgetExceededException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    public QueryBudgetExceededException(QueryStats stats) {
+        super(
+            "The request executed more than " +
+            stats.getBudget() +
+            " statements, the most frequent query being " +
+            stats.getMostFrequentQuery().orElse("none")
+        );
+    }
+}
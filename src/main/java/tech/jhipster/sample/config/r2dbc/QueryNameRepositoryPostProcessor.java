@@ -0,0 +1,45 @@
+package tech.jhipster.sample.config.r2dbc;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Names the queries of the Spring Data repositories after their interface and method, like
+ * {@code UserRepository.findOneByLogin}, for the metrics of the {@link InstrumentedConnectionFactory}.
+ * <p>
+ * The name is written in the Reactor context of the {@link Mono} or {@link Flux} returned by the repository, so it is
+ * seen by all the statements executed for it, including those of the custom implementations.
+ */
+public class QueryNameRepositoryPostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport) {
+            ((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(
+                    factory ->
+                        factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, repositoryInformation) ->
+                                proxyFactory.addAdvice(interceptor(repositoryInformation.getRepositoryInterface().getSimpleName()))
+                        )
+                );
+        }
+        return bean;
+    }
+
+    private static MethodInterceptor interceptor(String repositoryName) {
+        return invocation -> {
+            Object result = invocation.proceed();
+            String queryName = repositoryName + "." + invocation.getMethod().getName();
+            if (result instanceof Mono) {
+                return ((Mono<?>) result).contextWrite(context -> context.put(InstrumentedConnectionFactory.QUERY_NAME_KEY, queryName));
+            }
+            if (result instanceof Flux) {
+                return ((Flux<?>) result).contextWrite(context -> context.put(InstrumentedConnectionFactory.QUERY_NAME_KEY, queryName));
+            }
+            return result;
+        };
+    }
+}
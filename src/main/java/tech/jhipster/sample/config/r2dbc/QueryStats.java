@@ -0,0 +1,104 @@
+package tech.jhipster.sample.config.r2dbc;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The statements executed for a request, with the rows they fetched or updated and the time they took.
+ * <p>
+ * The stats are counted by the {@link InstrumentedConnectionFactory} in the instance of the {@link #CONTEXT_KEY} entry of
+ * the Reactor context. Above the budget, the request is logged, or its next statements fail with a
+ * {@link QueryBudgetExceededException}, to detect the N+1 selects and the other loops of statements.
+ */
+public class QueryStats {
+
+    /**
+     * The key of the Reactor context entry holding the stats of the request.
+     */
+    public static final String CONTEXT_KEY = QueryStats.class.getName();
+
+    public enum BudgetAction {
+        /**
+         * Log the requests over the budget, when they complete.
+         */
+        LOG,
+
+        /**
+         * Fail the statements over the budget, to fail the tests of the request.
+         */
+        FAIL,
+    }
+
+    private final int budget;
+
+    private final BudgetAction budgetAction;
+
+    private final AtomicInteger statements = new AtomicInteger();
+
+    private final AtomicLong rows = new AtomicLong();
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private final Map<String, AtomicInteger> statementsByQuery = new ConcurrentHashMap<>();
+
+    /**
+     * @param budget the maximum number of statements of the request.
+     * @param budgetAction what to do above the budget.
+     */
+    public QueryStats(int budget, BudgetAction budgetAction) {
+        this.budget = budget;
+        this.budgetAction = budgetAction;
+    }
+
+    /**
+     * Count a statement before it is executed.
+     *
+     * @param query the name of the query.
+     * @return false if the statement is over the budget and must fail.
+     */
+    boolean statementStarted(String query) {
+        statementsByQuery.computeIfAbsent(query, key -> new AtomicInteger()).incrementAndGet();
+        return statements.incrementAndGet() <= budget || budgetAction != BudgetAction.FAIL;
+    }
+
+    void statementCompleted(long rows, long nanos) {
+        this.rows.addAndGet(rows);
+        this.nanos.addAndGet(nanos);
+    }
+
+    public int getBudget() {
+        return budget;
+    }
+
+    public int getStatements() {
+        return statements.get();
+    }
+
+    public long getRows() {
+        return rows.get();
+    }
+
+    public Duration getTime() {
+        return Duration.ofNanos(nanos.get());
+    }
+
+    public boolean isOverBudget() {
+        return getStatements() > budget;
+    }
+
+    /**
+     * @return the query executed the most times, with its number of statements, like {@code UserRepository.findOneByLogin x 12}.
+     */
+    public Optional<String> getMostFrequentQuery() {
+        return statementsByQuery
+            .entrySet()
+            .stream()
+            .max(Comparator.comparingInt(entry -> entry.getValue().get()))
+            .map(entry -> entry.getKey() + " x " + entry.getValue().get());
+    }
+}
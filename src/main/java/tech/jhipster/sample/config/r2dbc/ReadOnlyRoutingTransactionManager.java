@@ -0,0 +1,32 @@
+package tech.jhipster.sample.config.r2dbc;
+
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+/**
+ * A {@link R2dbcTransactionManager} which tells the {@link ReadReplicaRoutingConnectionFactory} whether the connection
+ * of a new transaction is acquired for a read-only one.
+ * <p>
+ * The transactions which participate in an existing one keep its connection.
+ */
+public class ReadOnlyRoutingTransactionManager extends R2dbcTransactionManager {
+
+    public ReadOnlyRoutingTransactionManager(ConnectionFactory connectionFactory) {
+        super(connectionFactory);
+    }
+
+    @Override
+    protected Mono<Void> doBegin(
+        TransactionSynchronizationManager synchronizationManager,
+        Object transaction,
+        TransactionDefinition definition
+    ) {
+        // the connection is acquired when the returned Mono is subscribed, so it sees this context entry
+        return super
+            .doBegin(synchronizationManager, transaction, definition)
+            .contextWrite(context -> context.put(ReadReplicaRoutingConnectionFactory.READ_ONLY_KEY, definition.isReadOnly()));
+    }
+}
@@ -0,0 +1,150 @@
+package tech.jhipster.sample.config.r2dbc;
+
+import io.r2dbc.spi.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.r2dbc.connection.DelegatingConnectionFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+/**
+ * Routes the connections of the read-only transactions to read replicas, and all the others to the primary.
+ * <p>
+ * Whether a transaction is read-only is published in the Reactor context by {@link ReadOnlyRoutingTransactionManager},
+ * while it acquires the connection of the transaction. The replicas are selected in turn, or by their number of acquired
+ * and pending connections. A replica which fails to give a connection is skipped for the retry interval, and the
+ * connection is taken from the primary instead, as it is when all the replicas are skipped.
+ * <p>
+ * The replicas are updated asynchronously, so a read-only transaction may not see the latest writes: the values which
+ * are cached, and only refreshed when they are invalidated, should be read from the primary.
+ */
+public class ReadReplicaRoutingConnectionFactory extends DelegatingConnectionFactory implements Disposable {
+
+    /**
+     * The key of the Reactor context entry which is true when the connection is acquired for a read-only transaction.
+     */
+    public static final String READ_ONLY_KEY = ReadReplicaRoutingConnectionFactory.class.getName() + ".READ_ONLY";
+
+    public enum Selection {
+        /**
+         * Each replica in turn.
+         */
+        ROUND_ROBIN,
+
+        /**
+         * The replica with the fewest acquired and pending connections.
+         */
+        LEAST_PENDING,
+    }
+
+    private final Logger log = LoggerFactory.getLogger(ReadReplicaRoutingConnectionFactory.class);
+
+    private final MeteredConnectionPool primary;
+
+    private final List<Replica> replicas = new ArrayList<>();
+
+    private final Selection selection;
+
+    private final Duration retryInterval;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReadReplicaRoutingConnectionFactory(
+        MeteredConnectionPool primary,
+        List<MeteredConnectionPool> replicas,
+        Selection selection,
+        Duration retryInterval
+    ) {
+        super(primary);
+        this.primary = primary;
+        for (int i = 0; i < replicas.size(); i++) {
+            this.replicas.add(new Replica(i, replicas.get(i)));
+        }
+        this.selection = selection;
+        this.retryInterval = retryInterval;
+    }
+
+    @Override
+    public Mono<? extends Connection> create() {
+        return Mono.deferContextual(context -> isReadOnly(context) ? createReplicaConnection() : primary.create());
+    }
+
+    private static boolean isReadOnly(ContextView context) {
+        return context.getOrDefault(READ_ONLY_KEY, false);
+    }
+
+    private Mono<? extends Connection> createReplicaConnection() {
+        Replica replica = select();
+        if (replica == null) {
+            return primary.create();
+        }
+        return replica.pool
+            .create()
+            .cast(Connection.class)
+            .onErrorResume(
+                e -> {
+                    log.warn("Replica {} failed to give a connection, skipped for {}: {}", replica.index, retryInterval, e.getMessage());
+                    replica.skippedUntil = System.currentTimeMillis() + retryInterval.toMillis();
+                    return primary.create();
+                }
+            );
+    }
+
+    /**
+     * Select the replica of a read-only transaction.
+     *
+     * @return the replica, or null if they are all skipped.
+     */
+    private Replica select() {
+        long now = System.currentTimeMillis();
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        Replica selected = null;
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.skippedUntil > now) {
+                continue;
+            }
+            if (selection == Selection.ROUND_ROBIN) {
+                return replica;
+            }
+            if (selected == null || replica.load() < selected.load()) {
+                selected = replica;
+            }
+        }
+        return selected;
+    }
+
+    @Override
+    public void dispose() {
+        primary.dispose();
+        replicas.forEach(replica -> replica.pool.dispose());
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return primary.isDisposed();
+    }
+
+    private static final class Replica {
+
+        private final int index;
+
+        private final MeteredConnectionPool pool;
+
+        private volatile long skippedUntil;
+
+        Replica(int index, MeteredConnectionPool pool) {
+            this.index = index;
+            this.pool = pool;
+        }
+
+        private int load() {
+            return pool.getMetrics().map(metrics -> metrics.acquiredSize() + metrics.pendingAcquireSize()).orElse(0);
+        }
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * R2DBC connection factory decorators.
+ */
+package tech.jhipster.sample.config.r2dbc;
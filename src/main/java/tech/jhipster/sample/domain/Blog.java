@@ -3,6 +3,7 @@ package tech.jhipster.sample.domain;
 import java.io.Serializable;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Table;
 
@@ -26,6 +27,10 @@ public class Blog implements Serializable {
     @Column("user_id")
     private Long userId;
 
+    @Version
+    @Column("version")
+    private Long version;
+
     // jhipster-needle-entity-add-field - JHipster will add fields here
     public Long getId() {
         return id;
@@ -76,6 +81,19 @@ public class Blog implements Serializable {
         this.userId = user;
     }
 
+    public Long getVersion() {
+        return this.version;
+    }
+
+    public Blog version(Long version) {
+        this.version = version;
+        return this;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
     @Override
@@ -101,6 +119,7 @@ public class Blog implements Serializable {
         return "Blog{" +
             "id=" + getId() +
             ", name='" + getName() + "'" +
+            ", version=" + getVersion() +
             "}";
     }
 }
@@ -0,0 +1,31 @@
+package tech.jhipster.sample.repository;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The columns read with a {@link tech.jhipster.sample.domain.Blog}: the properties of its user which are not selected
+ * are left null.
+ */
+public enum BlogProjection {
+    /**
+     * The blog and all the columns of its user.
+     */
+    FULL(UserSqlHelper.COLUMNS),
+
+    /**
+     * The blog with the id and login of its user, which is all a {@link tech.jhipster.sample.service.dto.BlogDTO} holds.
+     */
+    USER_LOGIN(Arrays.asList("id", "login"));
+
+    private final List<String> userColumns;
+
+    BlogProjection(List<String> userColumns) {
+        this.userColumns = Collections.unmodifiableList(userColumns);
+    }
+
+    List<String> getUserColumns() {
+        return userColumns;
+    }
+}
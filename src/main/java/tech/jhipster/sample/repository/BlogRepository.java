@@ -1,5 +1,6 @@
 package tech.jhipster.sample.repository;
 
+import java.util.List;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
@@ -8,6 +9,7 @@ import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import tech.jhipster.sample.domain.Blog;
+import tech.jhipster.sample.service.EntityManager;
 
 /**
  * Spring Data SQL reactive repository for the Blog entity.
@@ -37,10 +39,65 @@ public interface BlogRepository extends R2dbcRepository<Blog, Long>, BlogReposit
 interface BlogRepositoryInternal {
     <S extends Blog> Mono<S> insert(S entity);
     <S extends Blog> Mono<S> save(S entity);
+
+    /**
+     * Update a blog and increment its version.
+     * <p>
+     * When the blog has a version, it is only updated if it still has this version in the database.
+     * @param entity the blog to update.
+     * @return the number of updated rows, or an {@link org.springframework.dao.OptimisticLockingFailureException} if the
+     * blog has a version and was modified or deleted since.
+     */
     Mono<Integer> update(Blog entity);
 
+    /**
+     * Update the non-null columns of a blog and increment its version, with a single statement.
+     * <p>
+     * When the blog has a version, it is only updated if it still has this version in the database.
+     * @param entity the id, the optional version and the columns to update.
+     * @return the number of updated rows, or an {@link org.springframework.dao.OptimisticLockingFailureException} if the
+     * blog has a version and was modified or deleted since.
+     */
+    Mono<Integer> updatePartially(Blog entity);
+
+    /**
+     * Read the version of a blog and the id and login of its user, without its other columns.
+     * @param id the id of the blog.
+     * @return the blog with only its id, its version and the id and login of its user, or empty if it doesn't exist.
+     */
+    Mono<Blog> findVersionWithUserById(Long id);
+
+    /**
+     * Insert the blogs with one batched statement, and set their generated ids.
+     * @param entities the blogs to insert.
+     * @return the inserted blogs, in the same order.
+     */
+    Flux<Blog> insertAll(List<Blog> entities);
+
+    /**
+     * Update the blogs with one batched statement, and increment their versions.
+     * <p>
+     * The blogs with a version are only updated if they still have this version in the database.
+     * @param entities the blogs to update.
+     * @return the number of updated rows for each blog, in the same order.
+     */
+    Flux<Integer> updateAll(List<Blog> entities);
+
+    /**
+     * Delete the blogs with one batched statement.
+     * @param ids the ids of the blogs to delete.
+     * @return the number of deleted rows for each id, in the same order.
+     */
+    Flux<Integer> deleteAllByIds(List<Long> ids);
+
     Flux<Blog> findAll();
     Mono<Blog> findById(Long id);
+    Mono<Blog> findById(Long id, BlogProjection projection);
     Flux<Blog> findAllBy(Pageable pageable);
     Flux<Blog> findAllBy(Pageable pageable, Criteria criteria);
+    Flux<Blog> findAllBy(Pageable pageable, Criteria criteria, BlogProjection projection);
+    Flux<Blog> findAllAfter(Pageable pageable, EntityManager.Keyset keyset);
+    Flux<Blog> findAllAfter(Pageable pageable, EntityManager.Keyset keyset, BlogProjection projection);
+    Flux<Blog> streamAllBy(Pageable pageable);
+    Flux<Blog> streamAllBy(Pageable pageable, BlogProjection projection);
 }
@@ -2,26 +2,39 @@ package tech.jhipster.sample.repository;
 
 import static org.springframework.data.relational.core.query.Criteria.where;
 
+import io.r2dbc.spi.Result;
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Statement;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.dialect.R2dbcDialect;
 import org.springframework.data.relational.core.query.Criteria;
-import org.springframework.data.relational.core.query.Query;
-import org.springframework.data.relational.core.query.Update;
 import org.springframework.data.relational.core.sql.Column;
 import org.springframework.data.relational.core.sql.Expression;
 import org.springframework.data.relational.core.sql.Select;
 import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoinCondition;
 import org.springframework.data.relational.core.sql.Table;
 import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.Parameter;
 import org.springframework.r2dbc.core.RowsFetchSpec;
+import org.springframework.r2dbc.core.binding.BindMarkers;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import tech.jhipster.sample.config.ApplicationProperties;
+import tech.jhipster.sample.config.FetchStrategy;
 import tech.jhipster.sample.domain.Blog;
+import tech.jhipster.sample.domain.User;
 import tech.jhipster.sample.repository.rowmapper.BlogRowMapper;
 import tech.jhipster.sample.repository.rowmapper.UserRowMapper;
 import tech.jhipster.sample.service.EntityManager;
@@ -38,21 +51,74 @@ class BlogRepositoryInternalImpl implements BlogRepositoryInternal {
 
     private final UserRowMapper userMapper;
     private final BlogRowMapper blogMapper;
+    private final ApplicationProperties applicationProperties;
+
+    private final String batchInsertSql;
+    private final String batchUpdateSql;
+    private final String batchDeleteSql;
 
     private static final Table entityTable = Table.aliased("blog", EntityManager.ENTITY_ALIAS);
     private static final Table userTable = Table.aliased("jhi_user", "e_user");
 
+    private static final Map<BlogProjection, EntityManager.SelectTemplate> withUserTemplates = new EnumMap<>(BlogProjection.class);
+
+    private static final Map<BlogProjection, EntityManager.SelectTemplate> userTemplates = new EnumMap<>(BlogProjection.class);
+
+    // one template per projection, so that the SQL of each of them is cached by the EntityManager
+    static {
+        for (BlogProjection projection : BlogProjection.values()) {
+            withUserTemplates.put(projection, new EntityManager.SelectTemplate(Blog.class, entityTable, () -> selectWithUser(projection)));
+            userTemplates.put(
+                projection,
+                new EntityManager.SelectTemplate(
+                    User.class,
+                    userTable,
+                    () -> Select.builder().select(UserSqlHelper.getColumns(userTable, "user", projection.getUserColumns())).from(userTable)
+                )
+            );
+        }
+    }
+
+    private static final EntityManager.SelectTemplate selectBlog = new EntityManager.SelectTemplate(
+        Blog.class,
+        entityTable,
+        () -> Select.builder().select(BlogSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS)).from(entityTable)
+    );
+
     public BlogRepositoryInternalImpl(
         R2dbcEntityTemplate template,
         EntityManager entityManager,
         UserRowMapper userMapper,
-        BlogRowMapper blogMapper
+        BlogRowMapper blogMapper,
+        ApplicationProperties applicationProperties,
+        R2dbcDialect dialect
     ) {
         this.db = template.getDatabaseClient();
         this.r2dbcEntityTemplate = template;
         this.entityManager = entityManager;
         this.userMapper = userMapper;
         this.blogMapper = blogMapper;
+        this.applicationProperties = applicationProperties;
+        BindMarkers insertMarkers = dialect.getBindMarkersFactory().create();
+        this.batchInsertSql =
+            "INSERT INTO blog (name, user_id) VALUES (" +
+            insertMarkers.next("name").getPlaceholder() +
+            ", " +
+            insertMarkers.next("user_id").getPlaceholder() +
+            ")";
+        BindMarkers updateMarkers = dialect.getBindMarkersFactory().create();
+        // every binding of a batch shares the statement, so the version is only checked when it is bound
+        this.batchUpdateSql =
+            "UPDATE blog SET name = " +
+            updateMarkers.next("name").getPlaceholder() +
+            ", user_id = " +
+            updateMarkers.next("user_id").getPlaceholder() +
+            ", version = version + 1 WHERE id = " +
+            updateMarkers.next("id").getPlaceholder() +
+            " AND version = COALESCE(" +
+            updateMarkers.next("version").getPlaceholder() +
+            ", version)";
+        this.batchDeleteSql = "DELETE FROM blog WHERE id = " + dialect.getBindMarkersFactory().create().next("id").getPlaceholder();
     }
 
     @Override
@@ -62,37 +128,122 @@ class BlogRepositoryInternalImpl implements BlogRepositoryInternal {
 
     @Override
     public Flux<Blog> findAllBy(Pageable pageable, Criteria criteria) {
-        return createQuery(pageable, criteria).all();
+        return findAllBy(pageable, criteria, BlogProjection.FULL);
+    }
+
+    @Override
+    public Flux<Blog> findAllBy(Pageable pageable, Criteria criteria, BlogProjection projection) {
+        if (isBatchFetch()) {
+            Flux<Blog> blogs = db.sql(entityManager.createSelect(selectBlog, pageable, criteria)).map(this::processBlog).all();
+            return withUsers(blogs, pageable, projection);
+        }
+        return createQuery(pageable, criteria, projection).all();
+    }
+
+    @Override
+    public Flux<Blog> findAllAfter(Pageable pageable, EntityManager.Keyset keyset) {
+        return findAllAfter(pageable, keyset, BlogProjection.FULL);
+    }
+
+    @Override
+    public Flux<Blog> findAllAfter(Pageable pageable, EntityManager.Keyset keyset, BlogProjection projection) {
+        if (isBatchFetch()) {
+            Flux<Blog> blogs = db.sql(entityManager.createSelect(selectBlog, pageable, null, keyset)).map(this::processBlog).all();
+            return withUsers(blogs, pageable, projection);
+        }
+        return db.sql(entityManager.createSelect(withUserTemplates.get(projection), pageable, null, keyset)).map(this::process).all();
+    }
+
+    @Override
+    public Flux<Blog> streamAllBy(Pageable pageable) {
+        return streamAllBy(pageable, BlogProjection.FULL);
+    }
+
+    @Override
+    public Flux<Blog> streamAllBy(Pageable pageable, BlogProjection projection) {
+        int fetchSize = applicationProperties.getDatabase().getFetchSize();
+        boolean batchFetch = isBatchFetch();
+        // rows are fetched from a cursor as they are requested, instead of as a single result set
+        Flux<Blog> blogs = db
+            .sql(entityManager.createSelect(batchFetch ? selectBlog : withUserTemplates.get(projection), pageable, null))
+            .filter(statement -> statement.fetchSize(fetchSize))
+            .map(batchFetch ? this::processBlog : this::process)
+            .all()
+            .limitRate(fetchSize);
+        return batchFetch ? withUsers(blogs, fetchSize, projection) : blogs;
     }
 
     RowsFetchSpec<Blog> createQuery(Pageable pageable, Criteria criteria) {
+        return createQuery(pageable, criteria, BlogProjection.FULL);
+    }
+
+    RowsFetchSpec<Blog> createQuery(Pageable pageable, Criteria criteria, BlogProjection projection) {
+        return db.sql(entityManager.createSelect(withUserTemplates.get(projection), pageable, criteria)).map(this::process);
+    }
+
+    private boolean isBatchFetch() {
+        return applicationProperties.getBlog().getUserFetch() == FetchStrategy.BATCH;
+    }
+
+    private Flux<Blog> withUsers(Flux<Blog> blogs, Pageable pageable, BlogProjection projection) {
+        boolean paged = pageable != null && pageable.isPaged();
+        return withUsers(blogs, paged ? pageable.getPageSize() : applicationProperties.getDatabase().getFetchSize(), projection);
+    }
+
+    /**
+     * Set the users of the blogs, read with one query per batch of blogs.
+     * <p>
+     * The users are kept for the whole query, so each of them is read and mapped once, whatever the number of its blogs.
+     */
+    private Flux<Blog> withUsers(Flux<Blog> blogs, int batchSize, BlogProjection projection) {
+        return Flux.defer(
+            () -> {
+                Map<Long, User> users = new HashMap<>();
+                return blogs.buffer(batchSize).concatMap(batch -> withUsers(batch, users, projection));
+            }
+        );
+    }
+
+    private Flux<Blog> withUsers(List<Blog> batch, Map<Long, User> users, BlogProjection projection) {
+        Set<Long> missingIds = batch
+            .stream()
+            .map(Blog::getUserId)
+            .filter(Objects::nonNull)
+            .filter(userId -> !users.containsKey(userId))
+            .collect(Collectors.toSet());
+        Mono<Void> loadUsers = missingIds.isEmpty()
+            ? Mono.empty()
+            : db
+                .sql(entityManager.createSelect(userTemplates.get(projection), null, where("id").in(missingIds)))
+                .map((row, metadata) -> userMapper.apply(row, metadata, "user"))
+                .all()
+                .doOnNext(user -> users.put(user.getId(), user))
+                .then();
+        return loadUsers.thenMany(
+            Flux
+                .fromIterable(batch)
+                .map(
+                    blog -> {
+                        User user = blog.getUserId() != null ? users.get(blog.getUserId()) : null;
+                        if (user != null) {
+                            blog.setUser(user);
+                        }
+                        return blog;
+                    }
+                )
+        );
+    }
+
+    private static SelectFromAndJoinCondition selectWithUser(BlogProjection projection) {
         List<Expression> columns = BlogSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
-        columns.addAll(UserSqlHelper.getColumns(userTable, "user"));
-        SelectFromAndJoinCondition selectFrom = Select
+        columns.addAll(UserSqlHelper.getColumns(userTable, "user", projection.getUserColumns()));
+        return Select
             .builder()
             .select(columns)
             .from(entityTable)
             .leftOuterJoin(userTable)
             .on(Column.create("user_id", entityTable))
             .equals(Column.create("id", userTable));
-
-        String select = entityManager.createSelect(selectFrom, Blog.class, pageable, criteria);
-        String alias = entityTable.getReferenceName().getReference();
-        String selectWhere = Optional
-            .ofNullable(criteria)
-            .map(
-                crit ->
-                    new StringBuilder(select)
-                        .append(" ")
-                        .append("WHERE")
-                        .append(" ")
-                        .append(alias)
-                        .append(".")
-                        .append(crit.toString())
-                        .toString()
-            )
-            .orElse(select); // TODO remove once https://github.com/spring-projects/spring-data-jdbc/issues/907 will be fixed
-        return db.sql(selectWhere).map(this::process);
     }
 
     @Override
@@ -102,12 +253,24 @@ class BlogRepositoryInternalImpl implements BlogRepositoryInternal {
 
     @Override
     public Mono<Blog> findById(Long id) {
-        return createQuery(null, where("id").is(id)).one();
+        return findById(id, BlogProjection.FULL);
+    }
+
+    @Override
+    public Mono<Blog> findById(Long id, BlogProjection projection) {
+        if (isBatchFetch()) {
+            return findAllBy(null, where("id").is(id), projection).singleOrEmpty();
+        }
+        return createQuery(null, where("id").is(id), projection).one();
+    }
+
+    private Blog processBlog(Row row, RowMetadata metadata) {
+        return blogMapper.apply(row, "e");
     }
 
     private Blog process(Row row, RowMetadata metadata) {
         Blog entity = blogMapper.apply(row, "e");
-        entity.setUser(userMapper.apply(row, "user"));
+        entity.setUser(userMapper.apply(row, metadata, "user"));
         return entity;
     }
 
@@ -135,12 +298,179 @@ class BlogRepositoryInternalImpl implements BlogRepositoryInternal {
 
     @Override
     public Mono<Integer> update(Blog entity) {
-        return r2dbcEntityTemplate.update(
-            Query.query(where("id").is(entity.getId())),
-            Update.update("name", entity.getName()).set("user_id", entity.getUserId()),
-            Blog.class
+        Map<String, Parameter> values = new LinkedHashMap<>();
+        values.put("name", Parameter.fromOrEmpty(entity.getName(), String.class));
+        values.put("user_id", Parameter.fromOrEmpty(entity.getUserId(), Long.class));
+        return update(entity.getId(), entity.getVersion(), values).doOnNext(numberOfUpdates -> incrementVersion(entity, numberOfUpdates));
+    }
+
+    @Override
+    public Mono<Integer> updatePartially(Blog entity) {
+        Map<String, Parameter> values = new LinkedHashMap<>();
+        if (entity.getName() != null) {
+            values.put("name", Parameter.from(entity.getName()));
+        }
+        if (entity.getUserId() != null) {
+            values.put("user_id", Parameter.from(entity.getUserId()));
+        }
+        return update(entity.getId(), entity.getVersion(), values).doOnNext(numberOfUpdates -> incrementVersion(entity, numberOfUpdates));
+    }
+
+    /**
+     * Update the columns of a blog and increment its version, with a single statement.
+     * <p>
+     * With a version, the row is only updated if it still has this version: when no row is updated, the blog was modified
+     * or deleted since it was read, and an {@link OptimisticLockingFailureException} is signaled.
+     */
+    private Mono<Integer> update(Long id, Long version, Map<String, Parameter> values) {
+        StringBuilder sql = new StringBuilder("UPDATE blog SET ");
+        values.keySet().forEach(column -> sql.append(column).append(" = :").append(column).append(", "));
+        // the version is incremented by the database, as the Update API can't express it
+        sql.append("version = version + 1 WHERE id = :id");
+        if (version != null) {
+            sql.append(" AND version = :version");
+        }
+        DatabaseClient.GenericExecuteSpec update = db.sql(sql.toString()).bind("id", id);
+        for (Map.Entry<String, Parameter> value : values.entrySet()) {
+            update = update.bind(value.getKey(), value.getValue());
+        }
+        if (version != null) {
+            update = update.bind("version", version);
+        }
+        return update
+            .fetch()
+            .rowsUpdated()
+            .handle(
+                (numberOfUpdates, sink) -> {
+                    if (numberOfUpdates == 0 && version != null) {
+                        String message = "Blog with id = " + id + " and version = " + version + " was modified or deleted";
+                        sink.error(new OptimisticLockingFailureException(message));
+                    } else {
+                        sink.next(numberOfUpdates);
+                    }
+                }
+            );
+    }
+
+    private static void incrementVersion(Blog entity, int numberOfUpdates) {
+        if (numberOfUpdates > 0 && entity.getVersion() != null) {
+            entity.setVersion(entity.getVersion() + 1);
+        }
+    }
+
+    @Override
+    public Mono<Blog> findVersionWithUserById(Long id) {
+        return db
+            .sql(
+                "SELECT e.version, u.id AS user_id, u.login AS user_login FROM blog e" +
+                " LEFT OUTER JOIN jhi_user u ON u.id = e.user_id WHERE e.id = :id"
+            )
+            .bind("id", id)
+            .map(
+                row -> {
+                    Blog blog = new Blog().id(id).version(row.get("version", Long.class));
+                    Long userId = row.get("user_id", Long.class);
+                    if (userId != null) {
+                        User user = new User();
+                        user.setId(userId);
+                        user.setLogin(row.get("user_login", String.class));
+                        blog.setUser(user);
+                    }
+                    return blog;
+                }
+            )
+            .one();
+    }
+
+    @Override
+    public Flux<Blog> insertAll(List<Blog> entities) {
+        if (entities.isEmpty()) {
+            return Flux.empty();
+        }
+        // a single statement with one binding set per blog, sent by the driver as one batch
+        Flux<Long> ids = db.inConnectionMany(
+            connection -> {
+                Statement statement = connection.createStatement(batchInsertSql).returnGeneratedValues("id");
+                bindAll(statement, entities, false);
+                return Flux.from(statement.execute()).concatMap(result -> result.map((row, metadata) -> row.get(0, Long.class)));
+            }
+        );
+        return ids.zipWithIterable(
+            entities,
+            (id, entity) -> {
+                entity.setId(id);
+                entity.setVersion(0L);
+                return entity;
+            }
+        );
+    }
+
+    @Override
+    public Flux<Integer> updateAll(List<Blog> entities) {
+        if (entities.isEmpty()) {
+            return Flux.empty();
+        }
+        return db.inConnectionMany(
+            connection -> {
+                Statement statement = connection.createStatement(batchUpdateSql);
+                bindAll(statement, entities, true);
+                return Flux.from(statement.execute()).concatMap(Result::getRowsUpdated);
+            }
+        )
+            .zipWithIterable(
+                entities,
+                (numberOfUpdates, entity) -> {
+                    incrementVersion(entity, numberOfUpdates);
+                    return numberOfUpdates;
+                }
+            );
+    }
+
+    @Override
+    public Flux<Integer> deleteAllByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return db.inConnectionMany(
+            connection -> {
+                Statement statement = connection.createStatement(batchDeleteSql);
+                for (int i = 0; i < ids.size(); i++) {
+                    if (i > 0) {
+                        statement.add();
+                    }
+                    statement.bind(0, ids.get(i));
+                }
+                return Flux.from(statement.execute()).concatMap(Result::getRowsUpdated);
+            }
         );
     }
+
+    private static void bindAll(Statement statement, List<Blog> entities, boolean withId) {
+        for (int i = 0; i < entities.size(); i++) {
+            if (i > 0) {
+                statement.add();
+            }
+            Blog entity = entities.get(i);
+            if (entity.getName() != null) {
+                statement.bind(0, entity.getName());
+            } else {
+                statement.bindNull(0, String.class);
+            }
+            if (entity.getUserId() != null) {
+                statement.bind(1, entity.getUserId());
+            } else {
+                statement.bindNull(1, Long.class);
+            }
+            if (withId) {
+                statement.bind(2, entity.getId());
+                if (entity.getVersion() != null) {
+                    statement.bind(3, entity.getVersion());
+                } else {
+                    statement.bindNull(3, Long.class);
+                }
+            }
+        }
+    }
 }
 
 class BlogSqlHelper {
@@ -151,6 +481,7 @@ class BlogSqlHelper {
         columns.add(Column.aliased("name", table, columnPrefix + "_name"));
 
         columns.add(Column.aliased("user_id", table, columnPrefix + "_user_id"));
+        columns.add(Column.aliased("version", table, columnPrefix + "_version"));
         return columns;
     }
 }
@@ -4,11 +4,11 @@ import static org.springframework.data.relational.core.query.Criteria.where;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.r2dbc.convert.R2dbcConverter;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.r2dbc.core.StatementMapper;
 import org.springframework.data.r2dbc.repository.Query;
@@ -21,9 +21,10 @@ import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.util.function.Tuples;
 import tech.jhipster.sample.domain.Authority;
 import tech.jhipster.sample.domain.User;
+import tech.jhipster.sample.repository.rowmapper.UserRowMapper;
+import tech.jhipster.sample.service.EntityManager;
 
 /**
  * Spring Data R2DBC repository for the {@link User} entity.
@@ -49,6 +50,19 @@ public interface UserRepository extends R2dbcRepository<User, Long>, UserReposit
     @Query("INSERT INTO jhi_user_authority VALUES(:userId, :authority)")
     Mono<Void> saveUserAuthority(Long userId, String authority);
 
+    @Query(
+        "INSERT INTO jhi_user_authority (user_id, authority_name) SELECT :userId, a.name FROM jhi_authority a" +
+        " WHERE a.name IN (:authorities) AND NOT EXISTS" +
+        " (SELECT 1 FROM jhi_user_authority ua WHERE ua.user_id = :userId AND ua.authority_name = a.name)"
+    )
+    Mono<Void> saveMissingUserAuthorities(Long userId, Collection<String> authorities);
+
+    @Query("DELETE FROM jhi_user_authority WHERE user_id = :userId AND authority_name NOT IN (:authorities)")
+    Mono<Void> deleteUserAuthoritiesNotIn(Long userId, Collection<String> authorities);
+
+    @Query("DELETE FROM jhi_user_authority WHERE user_id = :userId")
+    Mono<Void> deleteUserAuthorities(Long userId);
+
     @Query("DELETE FROM jhi_user_authority")
     Mono<Void> deleteAllUserAuthorities();
 }
@@ -61,17 +75,28 @@ interface UserRepositoryInternal extends DeleteExtended<User> {
     Mono<User> findOneWithAuthoritiesByLogin(String login);
 
     Mono<User> findOneWithAuthoritiesByEmailIgnoreCase(String email);
+
+    Flux<User> findAllAfter(Pageable pageable, EntityManager.Keyset keyset);
+
+    /**
+     * Delete the first not activated users created before a date, with their authorities.
+     *
+     * @param dateTime the date.
+     * @param limit the maximum number of users to delete.
+     * @return the number of deleted users.
+     */
+    Mono<Integer> deleteNotActivatedUsersCreatedBefore(LocalDateTime dateTime, int limit);
 }
 
 class UserRepositoryInternalImpl implements UserRepositoryInternal {
 
     private final R2dbcEntityTemplate r2dbcEntityTemplate;
 
-    private final R2dbcConverter r2dbcConverter;
+    private final UserRowMapper userMapper;
 
-    public UserRepositoryInternalImpl(DatabaseClient db, R2dbcEntityTemplate r2dbcEntityTemplate, R2dbcConverter r2dbcConverter) {
+    public UserRepositoryInternalImpl(DatabaseClient db, R2dbcEntityTemplate r2dbcEntityTemplate, UserRowMapper userMapper) {
         this.r2dbcEntityTemplate = r2dbcEntityTemplate;
-        this.r2dbcConverter = r2dbcConverter;
+        this.userMapper = userMapper;
     }
 
     @Override
@@ -85,34 +110,74 @@ class UserRepositoryInternalImpl implements UserRepositoryInternal {
     }
 
     private Mono<User> findOneWithAuthoritiesBy(String fieldName, Object fieldValue) {
+        // the authorities are aggregated into a single row, array_agg is available on both PostgreSQL and H2
         return r2dbcEntityTemplate
             .getDatabaseClient()
-            .sql("SELECT * FROM jhi_user u LEFT JOIN jhi_user_authority ua ON u.id=ua.user_id WHERE u." + fieldName + " = :" + fieldName)
+            .sql(
+                "SELECT u.*, (SELECT array_agg(ua.authority_name) FROM jhi_user_authority ua WHERE ua.user_id = u.id) AS authority_names" +
+                " FROM jhi_user u WHERE u." +
+                fieldName +
+                " = :" +
+                fieldName
+            )
             .bind(fieldName, fieldValue)
             .map(
-                (row, metadata) ->
-                    Tuples.of(r2dbcConverter.read(User.class, row, metadata), Optional.ofNullable(row.get("authority_name", String.class)))
+                (row, metadata) -> {
+                    User user = userMapper.apply(row, metadata, null);
+                    // PostgreSQL returns a String[], H2 an Object[]
+                    Object[] authorityNames = (Object[]) row.get("authority_names");
+                    if (authorityNames != null) {
+                        for (Object authorityName : authorityNames) {
+                            Authority authority = new Authority();
+                            authority.setName((String) authorityName);
+                            user.getAuthorities().add(authority);
+                        }
+                    }
+                    return user;
+                }
             )
+            .one();
+    }
+
+    @Override
+    public Flux<User> findAllAfter(Pageable pageable, EntityManager.Keyset keyset) {
+        Sort sort = EntityManager.Keyset.sort(pageable.getSort());
+        return r2dbcEntityTemplate
+            .select(User.class)
+            .matching(
+                org.springframework.data.relational.core.query.Query
+                    .query(keyset.criteria(pageable.getSort()))
+                    .sort(sort)
+                    .limit(pageable.getPageSize())
+            )
+            .all();
+    }
+
+    @Override
+    public Mono<Integer> deleteNotActivatedUsersCreatedBefore(LocalDateTime dateTime, int limit) {
+        DatabaseClient db = r2dbcEntityTemplate.getDatabaseClient();
+        // the users are locked, so that they can't be activated between the deletion of their authorities and their own
+        String sql =
+            "SELECT id FROM jhi_user WHERE activated = false AND activation_key IS NOT NULL AND created_date < :dateTime" +
+            " ORDER BY id LIMIT :limit FOR UPDATE";
+        return db
+            .sql(sql)
+            .bind("dateTime", dateTime)
+            .bind("limit", limit)
+            .map(row -> row.get("id", Long.class))
             .all()
             .collectList()
-            .filter(l -> !l.isEmpty())
-            .map(
-                l -> {
-                    User user = l.get(0).getT1();
-                    user.setAuthorities(
-                        l
-                            .stream()
-                            .filter(t -> t.getT2().isPresent())
-                            .map(
-                                t -> {
-                                    Authority authority = new Authority();
-                                    authority.setName(t.getT2().get());
-                                    return authority;
-                                }
-                            )
-                            .collect(Collectors.toSet())
-                    );
-                    return user;
+            .flatMap(
+                ids -> {
+                    if (ids.isEmpty()) {
+                        return Mono.just(0);
+                    }
+                    return db
+                        .sql("DELETE FROM jhi_user_authority WHERE user_id IN (:ids)")
+                        .bind("ids", ids)
+                        .fetch()
+                        .rowsUpdated()
+                        .then(db.sql("DELETE FROM jhi_user WHERE id IN (:ids)").bind("ids", ids).fetch().rowsUpdated());
                 }
             );
     }
@@ -141,20 +206,32 @@ class UserRepositoryInternalImpl implements UserRepositoryInternal {
 
 class UserSqlHelper {
 
+    static final List<String> COLUMNS = Arrays.asList(
+        "id",
+        "login",
+        "password_hash",
+        "first_name",
+        "last_name",
+        "email",
+        "activated",
+        "lang_key",
+        "image_url",
+        "activation_key",
+        "reset_key",
+        "reset_date"
+    );
+
     static List<Expression> getColumns(Table table, String columnPrefix) {
+        return getColumns(table, columnPrefix, COLUMNS);
+    }
+
+    static List<Expression> getColumns(Table table, String columnPrefix, Collection<String> columnNames) {
         List<Expression> columns = new ArrayList<>();
-        columns.add(Column.aliased("id", table, columnPrefix + "_id"));
-        columns.add(Column.aliased("login", table, columnPrefix + "_login"));
-        columns.add(Column.aliased("password_hash", table, columnPrefix + "_password"));
-        columns.add(Column.aliased("first_name", table, columnPrefix + "_first_name"));
-        columns.add(Column.aliased("last_name", table, columnPrefix + "_last_name"));
-        columns.add(Column.aliased("email", table, columnPrefix + "_email"));
-        columns.add(Column.aliased("activated", table, columnPrefix + "_activated"));
-        columns.add(Column.aliased("lang_key", table, columnPrefix + "_lang_key"));
-        columns.add(Column.aliased("image_url", table, columnPrefix + "_image_url"));
-        columns.add(Column.aliased("activation_key", table, columnPrefix + "_activation_key"));
-        columns.add(Column.aliased("reset_key", table, columnPrefix + "_reset_key"));
-        columns.add(Column.aliased("reset_date", table, columnPrefix + "_reset_date"));
+        for (String columnName : columnNames) {
+            // the alias of password_hash is shorter, see UserRowMapper
+            String alias = "password_hash".equals(columnName) ? "password" : columnName;
+            columns.add(Column.aliased(columnName, table, columnPrefix + "_" + alias));
+        }
         return columns;
     }
 }
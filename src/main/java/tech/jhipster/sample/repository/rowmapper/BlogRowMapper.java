@@ -28,6 +28,7 @@ public class BlogRowMapper implements BiFunction<Row, String, Blog> {
         entity.setId(converter.fromRow(row, prefix + "_id", Long.class));
         entity.setName(converter.fromRow(row, prefix + "_name", String.class));
         entity.setUserId(converter.fromRow(row, prefix + "_user_id", Long.class));
+        entity.setVersion(converter.fromRow(row, prefix + "_version", Long.class));
         return entity;
     }
 }
@@ -1,43 +1,148 @@
 package tech.jhipster.sample.repository.rowmapper;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.r2dbc.spi.ColumnMetadata;
 import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
 import java.time.Instant;
-import java.util.function.BiFunction;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.springframework.stereotype.Service;
 import tech.jhipster.sample.domain.User;
 import tech.jhipster.sample.service.ColumnConverter;
 
 /**
  * Converter between {@link Row} to {@link User}, with proper type conversions.
+ * <p>
+ * The columns are looked up once per {@link RowMetadata}, then every row is read by index with the types of the driver,
+ * without going through the reflective mapping of Spring Data. The drivers share the metadata between the rows of a result,
+ * so the indexes are kept as long as the result is, whatever the number of results read at the same time.
  */
 @Service
-public class UserRowMapper implements BiFunction<Row, String, User> {
+public class UserRowMapper {
+
+    private static final int ID = 0;
+    private static final int LOGIN = 1;
+    private static final int PASSWORD = 2;
+    private static final int FIRST_NAME = 3;
+    private static final int LAST_NAME = 4;
+    private static final int EMAIL = 5;
+    private static final int ACTIVATED = 6;
+    private static final int LANG_KEY = 7;
+    private static final int IMAGE_URL = 8;
+    private static final int ACTIVATION_KEY = 9;
+    private static final int RESET_KEY = 10;
+    private static final int RESET_DATE = 11;
+    private static final int CREATED_BY = 12;
+    private static final int CREATED_DATE = 13;
+    private static final int LAST_MODIFIED_BY = 14;
+    private static final int LAST_MODIFIED_DATE = 15;
+
+    private static final String[] COLUMNS = {
+        "id",
+        "login",
+        "password_hash",
+        "first_name",
+        "last_name",
+        "email",
+        "activated",
+        "lang_key",
+        "image_url",
+        "activation_key",
+        "reset_key",
+        "reset_date",
+        "created_by",
+        "created_date",
+        "last_modified_by",
+        "last_modified_date",
+    };
 
     private final ColumnConverter converter;
 
+    // by prefix, the keys are compared by identity
+    private final Cache<RowMetadata, Map<String, ColumnIndexes>> columnIndexes = Caffeine.newBuilder().weakKeys().build();
+
     public UserRowMapper(ColumnConverter converter) {
         this.converter = converter;
     }
 
     /**
      * Take a {@link Row} and a column prefix, and extract all the fields.
+     * @param row the row to read.
+     * @param metadata the metadata of the row.
+     * @param prefix the prefix of the column aliases, or null if the columns are selected with their names.
      * @return the {@link User} stored in the database.
      */
-    @Override
-    public User apply(Row row, String prefix) {
+    public User apply(Row row, RowMetadata metadata, String prefix) {
+        String key = prefix != null ? prefix : "";
+        Map<String, ColumnIndexes> indexesByPrefix = columnIndexes.get(metadata, result -> new ConcurrentHashMap<>());
+        ColumnIndexes indexes = indexesByPrefix.get(key);
+        if (indexes == null) {
+            indexes = indexesByPrefix.computeIfAbsent(key, column -> new ColumnIndexes(metadata, prefix));
+        }
+        int[] index = indexes.indexes;
         User entity = new User();
-        entity.setId(row.get(prefix + "_id", Long.class));
-        entity.setLogin(converter.fromRow(row, prefix + "_login", String.class));
-        entity.setPassword(converter.fromRow(row, prefix + "_password", String.class));
-        entity.setFirstName(converter.fromRow(row, prefix + "_first_name", String.class));
-        entity.setLastName(converter.fromRow(row, prefix + "_last_name", String.class));
-        entity.setEmail(converter.fromRow(row, prefix + "_email", String.class));
-        entity.setActivated(Boolean.TRUE.equals(converter.fromRow(row, prefix + "_activated", Boolean.class)));
-        entity.setLangKey(converter.fromRow(row, prefix + "_lang_key", String.class));
-        entity.setImageUrl(converter.fromRow(row, prefix + "_image_url", String.class));
-        entity.setActivationKey(converter.fromRow(row, prefix + "_activation_key", String.class));
-        entity.setResetKey(converter.fromRow(row, prefix + "_reset_key", String.class));
-        entity.setResetDate(converter.fromRow(row, prefix + "_reset_date", Instant.class));
+        entity.setId(get(row, index[ID], Long.class));
+        entity.setLogin(get(row, index[LOGIN], String.class));
+        entity.setPassword(get(row, index[PASSWORD], String.class));
+        entity.setFirstName(get(row, index[FIRST_NAME], String.class));
+        entity.setLastName(get(row, index[LAST_NAME], String.class));
+        entity.setEmail(get(row, index[EMAIL], String.class));
+        entity.setActivated(Boolean.TRUE.equals(get(row, index[ACTIVATED], Boolean.class)));
+        entity.setLangKey(get(row, index[LANG_KEY], String.class));
+        entity.setImageUrl(get(row, index[IMAGE_URL], String.class));
+        entity.setActivationKey(get(row, index[ACTIVATION_KEY], String.class));
+        entity.setResetKey(get(row, index[RESET_KEY], String.class));
+        entity.setResetDate(getInstant(row, index[RESET_DATE]));
+        entity.setCreatedBy(get(row, index[CREATED_BY], String.class));
+        // the auditing dates keep their default value when they aren't selected
+        Instant createdDate = getInstant(row, index[CREATED_DATE]);
+        if (createdDate != null) {
+            entity.setCreatedDate(createdDate);
+        }
+        entity.setLastModifiedBy(get(row, index[LAST_MODIFIED_BY], String.class));
+        Instant lastModifiedDate = getInstant(row, index[LAST_MODIFIED_DATE]);
+        if (lastModifiedDate != null) {
+            entity.setLastModifiedDate(lastModifiedDate);
+        }
         return entity;
     }
+
+    private static <T> T get(Row row, int index, Class<T> type) {
+        return index < 0 ? null : row.get(index, type);
+    }
+
+    private Instant getInstant(Row row, int index) {
+        // timestamp columns are decoded as LocalDateTime by the drivers
+        return converter.convert(get(row, index, LocalDateTime.class), Instant.class);
+    }
+
+    private static final class ColumnIndexes {
+
+        private final int[] indexes = new int[COLUMNS.length];
+
+        ColumnIndexes(RowMetadata metadata, String prefix) {
+            Map<String, Integer> indexByName = new HashMap<>();
+            int index = 0;
+            for (ColumnMetadata column : metadata.getColumnMetadatas()) {
+                // H2 returns the unquoted names in upper case
+                indexByName.putIfAbsent(column.getName().toLowerCase(Locale.ROOT), index++);
+            }
+            for (int i = 0; i < COLUMNS.length; i++) {
+                indexes[i] = indexByName.getOrDefault(label(prefix, i), -1);
+            }
+        }
+
+        private static String label(String prefix, int column) {
+            if (prefix == null) {
+                return COLUMNS[column];
+            }
+            // the password_hash column is aliased as password in the joins, see UserSqlHelper
+            return prefix + "_" + (column == PASSWORD ? "password" : COLUMNS[column]);
+        }
+    }
 }
@@ -1,5 +1,9 @@
 package tech.jhipster.sample.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import java.util.*;
 import java.util.stream.Collectors;
 import org.hibernate.validator.internal.constraintvalidators.hv.EmailValidator;
@@ -13,11 +17,15 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Mono;
+import tech.jhipster.sample.config.ApplicationProperties;
 import tech.jhipster.sample.domain.User;
 import tech.jhipster.sample.repository.UserRepository;
 
 /**
  * Authenticate a user from the database.
+ * <p>
+ * When {@code application.security.user-details-cache.enabled} is set, the users are kept for a short time after they
+ * are loaded, and {@link tech.jhipster.sample.service.UserService} evicts them when they are saved or deleted.
  */
 @Component("userDetailsService")
 public class DomainUserDetailsService implements ReactiveUserDetailsService {
@@ -26,8 +34,27 @@ public class DomainUserDetailsService implements ReactiveUserDetailsService {
 
     private final UserRepository userRepository;
 
-    public DomainUserDetailsService(UserRepository userRepository) {
+    private final Cache<String, CachedUserDetails> userDetailsCache;
+
+    public DomainUserDetailsService(
+        UserRepository userRepository,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
         this.userRepository = userRepository;
+        ApplicationProperties.Security.UserDetailsCache cacheProperties = applicationProperties.getSecurity().getUserDetailsCache();
+        if (cacheProperties.isEnabled()) {
+            this.userDetailsCache =
+                Caffeine
+                    .newBuilder()
+                    .maximumSize(cacheProperties.getMaxSize())
+                    .expireAfterWrite(cacheProperties.getTimeToLive())
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, userDetailsCache, "userDetails");
+        } else {
+            this.userDetailsCache = null;
+        }
     }
 
     @Override
@@ -35,18 +62,53 @@ public class DomainUserDetailsService implements ReactiveUserDetailsService {
     public Mono<UserDetails> findByUsername(final String login) {
         log.debug("Authenticating {}", login);
 
+        String lowercaseLogin = login.toLowerCase(Locale.ENGLISH);
+        if (userDetailsCache != null) {
+            CachedUserDetails cached = userDetailsCache.getIfPresent(lowercaseLogin);
+            if (cached != null) {
+                return Mono.just(copy(cached.userDetails));
+            }
+        }
+
+        Mono<UserDetails> userDetails;
         if (new EmailValidator().isValid(login, null)) {
-            return userRepository
-                .findOneWithAuthoritiesByEmailIgnoreCase(login)
-                .switchIfEmpty(Mono.error(new UsernameNotFoundException("User with email " + login + " was not found in the database")))
-                .map(user -> createSpringSecurityUser(login, user));
+            userDetails =
+                userRepository
+                    .findOneWithAuthoritiesByEmailIgnoreCase(login)
+                    .switchIfEmpty(Mono.error(new UsernameNotFoundException("User with email " + login + " was not found in the database")))
+                    .map(user -> cache(lowercaseLogin, user, createSpringSecurityUser(login, user)));
+        } else {
+            userDetails =
+                userRepository
+                    .findOneWithAuthoritiesByLogin(lowercaseLogin)
+                    .switchIfEmpty(Mono.error(new UsernameNotFoundException("User " + lowercaseLogin + " was not found in the database")))
+                    .map(user -> cache(lowercaseLogin, user, createSpringSecurityUser(lowercaseLogin, user)));
         }
+        return userDetails;
+    }
 
-        String lowercaseLogin = login.toLowerCase(Locale.ENGLISH);
-        return userRepository
-            .findOneWithAuthoritiesByLogin(lowercaseLogin)
-            .switchIfEmpty(Mono.error(new UsernameNotFoundException("User " + lowercaseLogin + " was not found in the database")))
-            .map(user -> createSpringSecurityUser(lowercaseLogin, user));
+    /**
+     * Remove a user from the cache, whatever the login or email it was loaded with.
+     *
+     * @param user the saved or deleted user.
+     */
+    public void evict(User user) {
+        if (userDetailsCache != null && user.getId() != null) {
+            userDetailsCache.asMap().values().removeIf(cached -> user.getId().equals(cached.userId));
+        }
+    }
+
+    private UserDetails cache(String key, User user, UserDetails userDetails) {
+        if (userDetailsCache == null) {
+            return userDetails;
+        }
+        // the cached instance is never handed out, so that erasing the credentials of a returned one doesn't affect it
+        userDetailsCache.put(key, new CachedUserDetails(user.getId(), copy(userDetails)));
+        return userDetails;
+    }
+
+    private static UserDetails copy(UserDetails userDetails) {
+        return org.springframework.security.core.userdetails.User.withUserDetails(userDetails).build();
     }
 
     private org.springframework.security.core.userdetails.User createSpringSecurityUser(String lowercaseLogin, User user) {
@@ -60,4 +122,15 @@ public class DomainUserDetailsService implements ReactiveUserDetailsService {
             .collect(Collectors.toList());
         return new org.springframework.security.core.userdetails.User(user.getLogin(), user.getPassword(), grantedAuthorities);
     }
+
+    private static final class CachedUserDetails {
+
+        private final Long userId;
+        private final UserDetails userDetails;
+
+        CachedUserDetails(Long userId, UserDetails userDetails) {
+            this.userId = userId;
+            this.userDetails = userDetails;
+        }
+    }
 }
@@ -1,12 +1,21 @@
 package tech.jhipster.sample.security.jwt;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.jackson.io.JacksonSerializer;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,6 +27,7 @@ import org.springframework.security.core.userdetails.User;
 import org.springframework.stereotype.Component;
 import org.springframework.util.ObjectUtils;
 import tech.jhipster.config.JHipsterProperties;
+import tech.jhipster.sample.config.ApplicationProperties;
 
 @Component
 public class TokenProvider {
@@ -34,7 +44,13 @@ public class TokenProvider {
 
     private final long tokenValidityInMillisecondsForRememberMe;
 
-    public TokenProvider(JHipsterProperties jHipsterProperties) {
+    private final Cache<String, ValidatedToken> validatedTokens;
+
+    private final Timer validTokenVerification;
+
+    private final Timer invalidTokenVerification;
+
+    public TokenProvider(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
         byte[] keyBytes;
         String secret = jHipsterProperties.getSecurity().getAuthentication().getJwt().getSecret();
         if (!ObjectUtils.isEmpty(secret)) {
@@ -52,6 +68,24 @@ public class TokenProvider {
         this.tokenValidityInMilliseconds = 1000 * jHipsterProperties.getSecurity().getAuthentication().getJwt().getTokenValidityInSeconds();
         this.tokenValidityInMillisecondsForRememberMe =
             1000 * jHipsterProperties.getSecurity().getAuthentication().getJwt().getTokenValidityInSecondsForRememberMe();
+        this.validatedTokens =
+            Caffeine
+                .newBuilder()
+                .maximumSize(applicationProperties.getSecurity().getJwtCacheSize())
+                .expireAfter(new ValidatedTokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, validatedTokens, "jwt");
+        this.validTokenVerification = verificationTimer("valid", meterRegistry);
+        this.invalidTokenVerification = verificationTimer("invalid", meterRegistry);
+    }
+
+    private static Timer verificationTimer(String outcome, MeterRegistry meterRegistry) {
+        return Timer
+            .builder("security.jwt.verification")
+            .description("Time spent parsing a JWT and verifying its signature")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
     }
 
     public String createToken(Authentication authentication, boolean rememberMe) {
@@ -75,9 +109,45 @@ public class TokenProvider {
             .compact();
     }
 
+    /**
+     * Validate the token and return its {@link Authentication}.
+     * <p>
+     * The token is parsed and its signature verified once: the {@link Authentication} is then kept until the token
+     * expires, and looked up by a hash of the token.
+     *
+     * @param token the JWT.
+     * @return the {@link Authentication} of the token, or empty if the token is not valid.
+     */
+    public Optional<Authentication> authenticate(String token) {
+        String tokenHash = hash(token);
+        ValidatedToken validatedToken = validatedTokens.getIfPresent(tokenHash);
+        if (validatedToken != null) {
+            return Optional.of(validatedToken.authentication);
+        }
+        long start = System.nanoTime();
+        Claims claims;
+        try {
+            claims = jwtParser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            invalidTokenVerification.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            log.info("Invalid JWT token.");
+            log.trace("Invalid JWT token trace.", e);
+            return Optional.empty();
+        }
+        validTokenVerification.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        Authentication authentication = getAuthentication(claims, token);
+        // a token without expiration would stay valid for as long as it is used, so it is never cached
+        if (claims.getExpiration() != null) {
+            validatedTokens.put(tokenHash, new ValidatedToken(authentication, claims.getExpiration().getTime()));
+        }
+        return Optional.of(authentication);
+    }
+
     public Authentication getAuthentication(String token) {
-        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        return getAuthentication(jwtParser.parseClaimsJws(token).getBody(), token);
+    }
 
+    private Authentication getAuthentication(Claims claims, String token) {
         Collection<? extends GrantedAuthority> authorities = Arrays
             .stream(claims.get(AUTHORITIES_KEY).toString().split(","))
             .filter(auth -> !auth.isBlank())
@@ -99,4 +169,43 @@ public class TokenProvider {
         }
         return false;
     }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class ValidatedToken {
+
+        private final Authentication authentication;
+        private final long expiration;
+
+        ValidatedToken(Authentication authentication, long expiration) {
+            this.authentication = authentication;
+            this.expiration = expiration;
+        }
+    }
+
+    private static final class ValidatedTokenExpiry implements Expiry<String, ValidatedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, ValidatedToken value, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, value.expiration - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, ValidatedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, ValidatedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
@@ -3,7 +3,9 @@ package tech.jhipster.sample.service;
 import org.springframework.data.domain.Pageable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import tech.jhipster.sample.config.CountMode;
 import tech.jhipster.sample.service.dto.BlogDTO;
+import tech.jhipster.sample.service.dto.BulkResultDTO;
 
 /**
  * Service Interface for managing {@link tech.jhipster.sample.domain.Blog}.
@@ -18,10 +20,18 @@ public interface BlogService {
     Mono<BlogDTO> save(BlogDTO blogDTO);
 
     /**
-     * Partially updates a blog.
+     * Save a stream of blogs, in chunks written by batched statements, each chunk in its own transaction.
      *
-     * @param blogDTO the entity to update partially.
-     * @return the persisted entity.
+     * @param blogDTOs the entities to create, without id, or to update, with an id.
+     * @return the result of each entity, in the order of the stream.
+     */
+    Flux<BulkResultDTO<BlogDTO>> saveAll(Flux<BlogDTO> blogDTOs);
+
+    /**
+     * Partially updates a blog, with a single statement.
+     *
+     * @param blogDTO the entity to update partially, with the version read by the client to only update it if it wasn't modified since.
+     * @return the persisted entity, or empty if it doesn't exist.
      */
     Mono<BlogDTO> partialUpdate(BlogDTO blogDTO);
 
@@ -33,6 +43,23 @@ public interface BlogService {
      */
     Flux<BlogDTO> findAll(Pageable pageable);
 
+    /**
+     * Get all the blogs, emitted as they are read from the database.
+     *
+     * @param pageable the pagination information, or {@link Pageable#unpaged()}.
+     * @return the list of entities.
+     */
+    Flux<BlogDTO> streamAll(Pageable pageable);
+
+    /**
+     * Get the page of blogs following the given keyset.
+     *
+     * @param pageable the page size and sort.
+     * @param keyset the sort value and id of the last blog of the previous page.
+     * @return the list of entities.
+     */
+    Flux<BlogDTO> findAll(Pageable pageable, EntityManager.Keyset keyset);
+
     /**
      * Returns the number of blogs available.
      * @return the number of entities in the database.
@@ -40,6 +67,13 @@ public interface BlogService {
      */
     Mono<Long> countAll();
 
+    /**
+     * Returns the number of blogs available, computed with the given mode.
+     * @param countMode how to count the blogs, or null to use the configured mode.
+     * @return the number of entities in the database, or empty with {@link CountMode#NONE}.
+     */
+    Mono<Long> countAll(CountMode countMode);
+
     /**
      * Get the "id" blog.
      *
@@ -48,6 +82,15 @@ public interface BlogService {
      */
     Mono<BlogDTO> findOne(Long id);
 
+    /**
+     * Get the version and the user of the "id" blog, from the cache when it holds the blog, without reading the other
+     * columns of the blog otherwise.
+     *
+     * @param id the id of the entity.
+     * @return the entity, with at least its version and the id and login of its user.
+     */
+    Mono<BlogDTO> findVersionWithUser(Long id);
+
     /**
      * Delete the "id" blog.
      *
@@ -55,4 +98,12 @@ public interface BlogService {
      * @return a Mono to signal the deletion
      */
     Mono<Void> delete(Long id);
+
+    /**
+     * Delete a stream of blogs, in chunks written by batched statements, each chunk in its own transaction.
+     *
+     * @param ids the ids of the entities.
+     * @return the result of each id, in the order of the stream.
+     */
+    Flux<BulkResultDTO<BlogDTO>> deleteAll(Flux<Long> ids);
 }
@@ -1,6 +1,12 @@
 package tech.jhipster.sample.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.r2dbc.spi.Row;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.data.r2dbc.convert.R2dbcConverter;
 import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
@@ -15,12 +21,18 @@ import org.springframework.util.ClassUtils;
 @Service
 public class ColumnConverter {
 
+    private final Logger log = LoggerFactory.getLogger(ColumnConverter.class);
+
     private final ConversionService conversionService;
     private final R2dbcCustomConversions conversions;
+    private final MeterRegistry meterRegistry;
+    // the columns which are converted, by requested type
+    private final Map<Class<?>, Map<String, Counter>> fallbacks = new ConcurrentHashMap<>();
 
-    public ColumnConverter(R2dbcCustomConversions conversions, R2dbcConverter r2dbcConverter) {
+    public ColumnConverter(R2dbcCustomConversions conversions, R2dbcConverter r2dbcConverter, MeterRegistry meterRegistry) {
         this.conversionService = r2dbcConverter.getConversionService();
         this.conversions = conversions;
+        this.meterRegistry = meterRegistry;
     }
 
     /**
@@ -48,6 +60,10 @@ public class ColumnConverter {
 
     /**
      * Convert a value from the {@link Row} to a type - throws an exception, it it's impossible.
+     * <p>
+     * The first time a column is read as a given type, the value is requested from the driver with that type, and if the
+     * driver can't decode it, the column is read with its default type and converted from then on. Conversions done this
+     * way are counted by the {@code r2dbc.column.conversion.fallbacks} metric.
      * @param row which contains the column values.
      * @param target class.
      * @param columnName the name of the column which to convert.
@@ -55,12 +71,28 @@ public class ColumnConverter {
      * @return the value which can be constructed from the input.
      */
     public <T> T fromRow(Row row, String columnName, Class<T> target) {
+        Map<String, Counter> fallbackColumns = fallbacks.computeIfAbsent(target, type -> new ConcurrentHashMap<>());
+        Counter fallback = fallbackColumns.get(columnName);
+        if (fallback != null) {
+            fallback.increment();
+            return convert(row.get(columnName), target);
+        }
         try {
             // try, directly the driver
             return row.get(columnName, target);
         } catch (Exception e) {
-            Object obj = row.get(columnName);
-            return convert(obj, target);
+            log.debug("Column {} can't be decoded as {}, it will be converted", columnName, target.getName());
+            fallback = fallbackColumns.computeIfAbsent(columnName, column -> fallbackCounter(target));
+            fallback.increment();
+            return convert(row.get(columnName), target);
         }
     }
+
+    private Counter fallbackCounter(Class<?> target) {
+        return Counter
+            .builder("r2dbc.column.conversion.fallbacks")
+            .description("Column values converted after the driver could not decode them to the requested type")
+            .tag("type", target.getSimpleName())
+            .register(meterRegistry);
+    }
 }
@@ -1,33 +1,52 @@
 package tech.jhipster.sample.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.r2dbc.convert.R2dbcConverter;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.r2dbc.core.StatementMapper;
+import org.springframework.data.r2dbc.dialect.H2Dialect;
+import org.springframework.data.r2dbc.dialect.PostgresDialect;
+import org.springframework.data.r2dbc.dialect.R2dbcDialect;
 import org.springframework.data.r2dbc.mapping.OutboundRow;
+import org.springframework.data.r2dbc.query.BoundCondition;
 import org.springframework.data.r2dbc.query.UpdateMapper;
 import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
 import org.springframework.data.relational.core.query.Criteria;
-import org.springframework.data.relational.core.sql.Conditions;
+import org.springframework.data.relational.core.sql.Condition;
+import org.springframework.data.relational.core.sql.IdentifierProcessing;
 import org.springframework.data.relational.core.sql.OrderByField;
 import org.springframework.data.relational.core.sql.Select;
-import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoin;
-import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoinCondition;
 import org.springframework.data.relational.core.sql.SelectBuilder.SelectOrdered;
+import org.springframework.data.relational.core.sql.SelectBuilder.SelectWhere;
 import org.springframework.data.relational.core.sql.SqlIdentifier;
 import org.springframework.data.relational.core.sql.Table;
 import org.springframework.data.relational.core.sql.render.SqlRenderer;
-import org.springframework.r2dbc.core.Parameter;
+import org.springframework.r2dbc.core.PreparedOperation;
+import org.springframework.r2dbc.core.binding.BindMarker;
+import org.springframework.r2dbc.core.binding.BindMarkers;
+import org.springframework.r2dbc.core.binding.BindTarget;
+import org.springframework.r2dbc.core.binding.Bindings;
+import org.springframework.r2dbc.core.binding.MutableBindings;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import tech.jhipster.sample.config.ApplicationProperties;
 
 /**
  * Helper class to create SQL selects based on the entity, paging parameters and criteria.
@@ -55,78 +74,215 @@ public class EntityManager {
         }
     }
 
+    /**
+     * Describes the select of an entity table, with its joins. The SQL rendered from a template is cached,
+     * so instances should be created once and reused.
+     */
+    public static class SelectTemplate {
+
+        final Class<?> entityType;
+        final Table table;
+        final Supplier<? extends SelectWhere> selectFrom;
+
+        public SelectTemplate(Class<?> entityType, Table table, Supplier<? extends SelectWhere> selectFrom) {
+            Assert.notNull(entityType, "entityType is null");
+            Assert.notNull(table, "table is null");
+            Assert.notNull(selectFrom, "selectFrom is null");
+            this.entityType = entityType;
+            this.table = table;
+            this.selectFrom = selectFrom;
+        }
+    }
+
+    /**
+     * Position of a keyset (seek) page: the sort value and the id of the last row of the previous page.
+     * <p>
+     * Rows are ordered by at most one property, with the id as tie-breaker, and the next page is selected with a
+     * predicate on these columns instead of an offset, so every page costs the same as the first one. The sort
+     * property must not be nullable, as {@code NULL} values can't be compared.
+     */
+    public static class Keyset {
+
+        public static final String ID_PROPERTY = "id";
+
+        private static final Keyset FIRST = new Keyset(null, null);
+
+        private final Object sortValue;
+        private final Object id;
+
+        private Keyset(Object sortValue, Object id) {
+            this.sortValue = sortValue;
+            this.id = id;
+        }
+
+        /**
+         * @return the keyset of the first page.
+         */
+        public static Keyset first() {
+            return FIRST;
+        }
+
+        /**
+         * @param id the id of the last row of the previous page, when the rows are sorted by id.
+         * @return the keyset of the page after that row.
+         */
+        public static Keyset after(Object id) {
+            Assert.notNull(id, "id is null");
+            return new Keyset(id, id);
+        }
+
+        /**
+         * @param sortValue the value of the sort property of the last row of the previous page.
+         * @param id the id of that row.
+         * @return the keyset of the page after that row.
+         */
+        public static Keyset after(Object sortValue, Object id) {
+            Assert.notNull(sortValue, "sortValue is null");
+            Assert.notNull(id, "id is null");
+            return new Keyset(sortValue, id);
+        }
+
+        /**
+         * Returns the order of a keyset page: the requested order, followed by the id in the same direction.
+         * @param sort the requested order, on the id or on a single other property.
+         * @return the order to use in the select.
+         * @throws IllegalArgumentException if the rows are sorted on more than one property.
+         */
+        public static Sort sort(Sort sort) {
+            List<Sort.Order> orders = sort.toList();
+            if (orders.isEmpty()) {
+                return Sort.by(ID_PROPERTY);
+            }
+            Assert.isTrue(orders.size() == 1, "Keyset pagination supports a single sort property");
+            Sort.Order order = orders.get(0);
+            if (ID_PROPERTY.equals(order.getProperty())) {
+                return sort;
+            }
+            return sort.and(Sort.by(order.getDirection(), ID_PROPERTY));
+        }
+
+        /**
+         * Returns the criteria selecting the rows after this keyset, in the given order.
+         * <p>
+         * The predicate on the sort column is spelled {@code col >= ? AND (col > ? OR id > ?)} rather than as a
+         * row value comparison, so that it can be mapped like any other criteria, and still be used as the start of
+         * an index range scan.
+         * @param sort the order of the page, as returned by {@link #sort(Sort)}.
+         * @return the criteria, empty for the first page.
+         */
+        public Criteria criteria(Sort sort) {
+            if (id == null) {
+                return Criteria.empty();
+            }
+            Sort.Order order = sort(sort).iterator().next();
+            if (ID_PROPERTY.equals(order.getProperty())) {
+                return order.isAscending()
+                    ? Criteria.where(ID_PROPERTY).greaterThan(id)
+                    : Criteria.where(ID_PROPERTY).lessThan(id);
+            }
+            String property = order.getProperty();
+            if (order.isAscending()) {
+                return Criteria
+                    .where(property)
+                    .greaterThanOrEquals(sortValue)
+                    .and(Criteria.where(property).greaterThan(sortValue).or(ID_PROPERTY).greaterThan(id));
+            }
+            return Criteria
+                .where(property)
+                .lessThanOrEquals(sortValue)
+                .and(Criteria.where(property).lessThan(sortValue).or(ID_PROPERTY).lessThan(id));
+        }
+
+        @Override
+        public String toString() {
+            return "Keyset{sortValue=" + sortValue + ", id=" + id + "}";
+        }
+    }
+
     private final SqlRenderer sqlRenderer;
     private final UpdateMapper updateMapper;
     private final R2dbcEntityTemplate r2dbcEntityTemplate;
     private final StatementMapper statementMapper;
+    private final R2dbcDialect dialect;
+    private final Cache<SelectKey, String> selectCache;
+    private final int linkTableChunkSize;
 
-    public EntityManager(SqlRenderer sqlRenderer, UpdateMapper updateMapper, R2dbcEntityTemplate r2dbcEntityTemplate) {
+    public EntityManager(
+        SqlRenderer sqlRenderer,
+        UpdateMapper updateMapper,
+        R2dbcEntityTemplate r2dbcEntityTemplate,
+        R2dbcDialect dialect,
+        ApplicationProperties applicationProperties
+    ) {
         this.sqlRenderer = sqlRenderer;
         this.updateMapper = updateMapper;
         this.r2dbcEntityTemplate = r2dbcEntityTemplate;
         this.statementMapper = r2dbcEntityTemplate.getDataAccessStrategy().getStatementMapper();
+        this.dialect = dialect;
+        this.selectCache = Caffeine.newBuilder().maximumSize(applicationProperties.getDatabase().getSelectCacheSize()).build();
+        this.linkTableChunkSize = applicationProperties.getDatabase().getLinkTableChunkSize();
     }
 
     /**
-     * Creates an SQL select statement from the given fragment and pagination parameters.
-     * @param selectFrom a representation of a select statement.
-     * @param entityType the entity type which holds the table name.
-     * @param pageable page parameter, or null, if everything needs to be returned
-     * @return sql select statement
+     * Creates an SQL select statement from the given template, pagination parameters and criteria.
+     * <p>
+     * The criteria values, the limit and the offset are bound as parameters, so the statement only depends on the
+     * template, the sort and the shape of the criteria: it is built and rendered once, and the database can reuse its plan.
+     * @param template the select of the entity, with its joins.
+     * @param pageable page parameter, or null, if everything needs to be returned, or {@link #unpaged(Sort)} to return
+     * everything in order.
+     * @param criteria the filter, or null.
+     * @return the sql select statement with its bindings, to be executed by the {@link org.springframework.r2dbc.core.DatabaseClient}.
      */
-    public String createSelect(SelectFromAndJoin selectFrom, Class<?> entityType, Pageable pageable, Criteria criteria) {
-        if (pageable != null) {
-            if (criteria != null) {
-                return createSelectImpl(
-                    selectFrom.limitOffset(pageable.getPageSize(), pageable.getOffset()).where(Conditions.just(criteria.toString())),
-                    entityType,
-                    pageable.getSort()
-                );
-            } else {
-                return createSelectImpl(
-                    selectFrom.limitOffset(pageable.getPageSize(), pageable.getOffset()),
-                    entityType,
-                    pageable.getSort()
-                );
-            }
-        } else {
-            if (criteria != null) {
-                return createSelectImpl(selectFrom.where(Conditions.just(criteria.toString())), entityType, null);
-            } else {
-                return createSelectImpl(selectFrom, entityType, null);
-            }
+    public PreparedOperation<String> createSelect(SelectTemplate template, Pageable pageable, Criteria criteria) {
+        boolean paged = pageable != null && pageable.isPaged();
+        Sort sort = pageable != null ? pageable.getSort() : Sort.unsorted();
+        BindMarkers markers = dialect.getBindMarkersFactory().create();
+        BoundCondition boundCondition = criteria != null && !criteria.isEmpty()
+            ? updateMapper.getMappedObject(markers, criteria, template.table, getPersistentEntity(template.entityType))
+            : null;
+
+        MutableBindings pageBindings = new MutableBindings(markers);
+        BindMarker limit = paged ? pageBindings.nextMarker("limit") : null;
+        BindMarker offset = paged ? pageBindings.nextMarker("offset") : null;
+        if (paged) {
+            pageBindings.bind(limit, pageable.getPageSize()).bind(offset, pageable.getOffset());
         }
+
+        Condition condition = boundCondition != null ? boundCondition.getCondition() : null;
+        Bindings bindings = boundCondition != null ? Bindings.merge(boundCondition.getBindings(), pageBindings) : pageBindings;
+        // the rendered condition only holds columns and bind markers, so it identifies the statement without its values
+        SelectKey key = new SelectKey(template, sort, Objects.toString(condition, null), paged);
+        String sql = selectCache.get(key, k -> renderSelect(template, condition, sort, limit, offset));
+        return new BoundOperation(sql, bindings);
     }
 
     /**
-     * Creates an SQL select statement from the given fragment and pagination parameters.
-     * @param selectFrom a representation of a select statement.
-     * @param entityType the entity type which holds the table name.
-     * @param pageable page parameter, or null, if everything needs to be returned
-     * @return sql select statement
+     * Creates an SQL select statement of the page following the given keyset.
+     * <p>
+     * Only the page size and the sort of the pagination parameters are used, the rows are selected with a predicate on
+     * the sort columns instead of an offset.
+     * @param template the select of the entity, with its joins.
+     * @param pageable page parameter.
+     * @param criteria the filter, or null.
+     * @param keyset the position of the page.
+     * @return the sql select statement with its bindings, to be executed by the {@link org.springframework.r2dbc.core.DatabaseClient}.
      */
-    public String createSelect(SelectFromAndJoinCondition selectFrom, Class<?> entityType, Pageable pageable, Criteria criteria) {
-        if (pageable != null) {
-            if (criteria != null) {
-                return createSelectImpl(
-                    selectFrom.limitOffset(pageable.getPageSize(), pageable.getOffset()).where(Conditions.just(criteria.toString())),
-                    entityType,
-                    pageable.getSort()
-                );
-            } else {
-                return createSelectImpl(
-                    selectFrom.limitOffset(pageable.getPageSize(), pageable.getOffset()),
-                    entityType,
-                    pageable.getSort()
-                );
-            }
-        } else {
-            if (criteria != null) {
-                return createSelectImpl(selectFrom.where(Conditions.just(criteria.toString())), entityType, null);
-            } else {
-                return createSelectImpl(selectFrom, entityType, null);
-            }
+    public PreparedOperation<String> createSelect(SelectTemplate template, Pageable pageable, Criteria criteria, Keyset keyset) {
+        Assert.notNull(pageable, "pageable is null");
+        Assert.notNull(keyset, "keyset is null");
+        Criteria seek = keyset.criteria(pageable.getSort());
+        Criteria combined = criteria == null || criteria.isEmpty() ? seek : seek.isEmpty() ? criteria : Criteria.from(criteria, seek);
+        return createSelect(template, PageRequest.of(0, pageable.getPageSize(), Keyset.sort(pageable.getSort())), combined);
+    }
+
+    private String renderSelect(SelectTemplate template, Condition condition, Sort sort, BindMarker limit, BindMarker offset) {
+        SelectWhere selectFrom = template.selectFrom.get();
+        String select = createSelectImpl(condition != null ? selectFrom.where(condition) : selectFrom, template.entityType, sort);
+        if (limit != null) {
+            select = select + " LIMIT " + limit.getPlaceholder() + " OFFSET " + offset.getPlaceholder();
         }
+        return select;
     }
 
     private String createSelectImpl(SelectOrdered selectFrom, Class<?> entityType, Sort sortParameter) {
@@ -146,6 +302,29 @@ public class EntityManager {
         return r2dbcEntityTemplate.getConverter().getMappingContext().getPersistentEntity(entityType);
     }
 
+    /**
+     * Returns the number of rows of the entity table estimated by the database statistics, without scanning the table.
+     * <p>
+     * Only PostgreSQL is supported, where the estimate is read from {@code pg_class.reltuples}.
+     * @param entityType the entity type which holds the table name.
+     * @return the estimated number of rows, or empty if the database has no estimate.
+     */
+    public Mono<Long> estimateCount(Class<?> entityType) {
+        // the H2 dialect extends the PostgreSQL one
+        if (!(dialect instanceof PostgresDialect) || dialect instanceof H2Dialect) {
+            return Mono.empty();
+        }
+        String tableName = getPersistentEntity(entityType).getTableName().getReference(IdentifierProcessing.NONE);
+        return r2dbcEntityTemplate
+            .getDatabaseClient()
+            .sql("SELECT reltuples::bigint FROM pg_class WHERE oid = to_regclass(:table)")
+            .bind("table", tableName)
+            .map(row -> row.get(0, Long.class))
+            .one()
+            // tables which were never analyzed have no estimate (0, or -1 since PostgreSQL 14)
+            .filter(estimate -> estimate > 0);
+    }
+
     /**
      * Delete all the entity with the given type, and return the number of deletions.
      * @param entityType the entity type which holds the table name.
@@ -192,30 +371,88 @@ public class EntityManager {
      * @return the number of inserted rows.
      */
     public Mono<Integer> updateLinkTable(LinkTable table, Long entityId, Stream<Long> referencedIds) {
-        return deleteFromLinkTable(table, entityId)
-            .then(
-                Flux
-                    .fromStream(referencedIds)
-                    .flatMap(
-                        (Long referenceId) -> {
-                            StatementMapper.InsertSpec insert = r2dbcEntityTemplate
-                                .getDataAccessStrategy()
-                                .getStatementMapper()
-                                .createInsert(table.tableName)
-                                .withColumn(table.idColumn, Parameter.from(entityId))
-                                .withColumn(table.referenceColumn, Parameter.from(referenceId));
-                            return r2dbcEntityTemplate
-                                .getDatabaseClient()
-                                .sql(statementMapper.getMappedObject(insert))
-                                .fetch()
-                                .rowsUpdated();
-                        }
-                    )
-                    .collectList()
-                    .map((List<Integer> updates) -> updates.stream().reduce(Integer::sum).orElse(0))
+        return updateLinkTable(table, entityId, referencedIds, false);
+    }
+
+    /**
+     * Updates the table, which links the entity with the referred entities.
+     * <p>
+     * The links are inserted with multi-row statements, of at most {@code application.database.link-table-chunk-size} rows.
+     * In diff mode, the existing links are read first, and only the removed ones are deleted and the new ones inserted,
+     * instead of deleting all the links of the entity and inserting them again.
+     * @param table describes the link table, it contains a table name, the column name for the id, and for the referred entity id.
+     * @param entityId the id of the entity, for which the links are created.
+     * @param referencedIds the id of the referred entities.
+     * @param diff true to only write the links which changed.
+     * @return the number of inserted rows.
+     */
+    public Mono<Integer> updateLinkTable(LinkTable table, Long entityId, Stream<Long> referencedIds, boolean diff) {
+        Assert.notNull(entityId, "entityId is null");
+        Set<Long> ids = referencedIds.collect(Collectors.toCollection(LinkedHashSet::new));
+        if (!diff) {
+            return deleteFromLinkTable(table, entityId).then(insertIntoLinkTable(table, entityId, new ArrayList<>(ids)));
+        }
+        return r2dbcEntityTemplate
+            .getDatabaseClient()
+            .sql("SELECT " + table.referenceColumn + " FROM " + table.tableName + " WHERE " + table.idColumn + " = :entityId")
+            .bind("entityId", entityId)
+            .map(row -> row.get(0, Long.class))
+            .all()
+            .collect(Collectors.toSet())
+            .flatMap(
+                existingIds -> {
+                    List<Long> removed = existingIds.stream().filter(id -> !ids.contains(id)).collect(Collectors.toList());
+                    List<Long> added = ids.stream().filter(id -> !existingIds.contains(id)).collect(Collectors.toList());
+                    return deleteFromLinkTable(table, entityId, removed).then(insertIntoLinkTable(table, entityId, added));
+                }
             );
     }
 
+    private Mono<Integer> insertIntoLinkTable(LinkTable table, Long entityId, List<Long> referencedIds) {
+        return Flux
+            .fromIterable(chunks(referencedIds))
+            .concatMap(
+                chunk -> {
+                    BindMarkers markers = dialect.getBindMarkersFactory().create();
+                    MutableBindings bindings = new MutableBindings(markers);
+                    StringJoiner values = new StringJoiner(", ");
+                    for (Long referenceId : chunk) {
+                        BindMarker id = bindings.nextMarker(table.idColumn);
+                        BindMarker reference = bindings.nextMarker(table.referenceColumn);
+                        bindings.bind(id, entityId).bind(reference, referenceId);
+                        values.add("(" + id.getPlaceholder() + ", " + reference.getPlaceholder() + ")");
+                    }
+                    String sql =
+                        "INSERT INTO " + table.tableName + " (" + table.idColumn + ", " + table.referenceColumn + ") VALUES " + values;
+                    return r2dbcEntityTemplate.getDatabaseClient().sql(new BoundOperation(sql, bindings)).fetch().rowsUpdated();
+                }
+            )
+            .reduce(0, Integer::sum);
+    }
+
+    private Mono<Void> deleteFromLinkTable(LinkTable table, Long entityId, List<Long> referencedIds) {
+        return Flux
+            .fromIterable(chunks(referencedIds))
+            .concatMap(
+                chunk -> {
+                    StatementMapper.DeleteSpec deleteSpec = statementMapper
+                        .createDelete(table.tableName)
+                        .withCriteria(Criteria.where(table.idColumn).is(entityId).and(table.referenceColumn).in(chunk));
+                    return r2dbcEntityTemplate.getDatabaseClient().sql(statementMapper.getMappedObject(deleteSpec)).then();
+                }
+            )
+            .then();
+    }
+
+    private List<List<Long>> chunks(List<Long> ids) {
+        int chunkSize = linkTableChunkSize;
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            chunks.add(ids.subList(from, Math.min(from + chunkSize, ids.size())));
+        }
+        return chunks;
+    }
+
     public Mono<Void> deleteFromLinkTable(LinkTable table, Long entityId) {
         Assert.notNull(entityId, "entityId is null");
         StatementMapper.DeleteSpec deleteSpec = r2dbcEntityTemplate
@@ -226,6 +463,132 @@ public class EntityManager {
         return r2dbcEntityTemplate.getDatabaseClient().sql(statementMapper.getMappedObject(deleteSpec)).then();
     }
 
+    /**
+     * Pagination parameters to select all the rows in the given order.
+     * @param sort the sort of the rows.
+     * @return the unpaged pagination parameters.
+     */
+    public static Pageable unpaged(Sort sort) {
+        return sort.isSorted() ? new UnpagedSort(sort) : Pageable.unpaged();
+    }
+
+    private static final class UnpagedSort implements Pageable {
+
+        private final Sort sort;
+
+        UnpagedSort(Sort sort) {
+            this.sort = sort;
+        }
+
+        @Override
+        public boolean isPaged() {
+            return false;
+        }
+
+        @Override
+        public int getPageNumber() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int getPageSize() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long getOffset() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Sort getSort() {
+            return sort;
+        }
+
+        @Override
+        public Pageable next() {
+            return this;
+        }
+
+        @Override
+        public Pageable previousOrFirst() {
+            return this;
+        }
+
+        @Override
+        public Pageable first() {
+            return this;
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return false;
+        }
+    }
+
+    private static final class SelectKey {
+
+        private final SelectTemplate template;
+        private final Sort sort;
+        private final String condition;
+        private final boolean paged;
+
+        SelectKey(SelectTemplate template, Sort sort, String condition, boolean paged) {
+            this.template = template;
+            this.sort = sort;
+            this.condition = condition;
+            this.paged = paged;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SelectKey)) {
+                return false;
+            }
+            SelectKey other = (SelectKey) o;
+            return (
+                template == other.template &&
+                paged == other.paged &&
+                sort.equals(other.sort) &&
+                Objects.equals(condition, other.condition)
+            );
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(template), sort, condition, paged);
+        }
+    }
+
+    private static final class BoundOperation implements PreparedOperation<String> {
+
+        private final String sql;
+        private final Bindings bindings;
+
+        BoundOperation(String sql, Bindings bindings) {
+            this.sql = sql;
+            this.bindings = bindings;
+        }
+
+        @Override
+        public String getSource() {
+            return sql;
+        }
+
+        @Override
+        public void bindTo(BindTarget target) {
+            bindings.apply(target);
+        }
+
+        @Override
+        public String toQuery() {
+            return sql;
+        }
+    }
+
     private static Collection<? extends OrderByField> createOrderByFields(Table table, Sort sortToUse) {
         List<OrderByField> fields = new ArrayList<>();
 
@@ -0,0 +1,45 @@
+package tech.jhipster.sample.service;
+
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+/**
+ * Utility class for running actions at the end of the current reactive transaction.
+ */
+public final class TransactionUtil {
+
+    private TransactionUtil() {}
+
+    /**
+     * Run an action once the current transaction completes, or right away without a transaction.
+     * <p>
+     * It is used to evict the cached values written by the transaction: evicted before the commit, they could be cached
+     * again by a concurrent read of their previous value.
+     *
+     * @param action the action, subscribed after the commit or the rollback.
+     * @return a Mono completing once the action is registered, or done without a transaction.
+     */
+    public static Mono<Void> runAfterCompletion(Mono<Void> action) {
+        return TransactionSynchronizationManager
+            .forCurrentTransaction()
+            .flatMap(
+                synchronizationManager -> {
+                    if (!synchronizationManager.isSynchronizationActive()) {
+                        return action;
+                    }
+                    synchronizationManager.registerSynchronization(
+                        new TransactionSynchronization() {
+                            @Override
+                            public Mono<Void> afterCompletion(int status) {
+                                return action;
+                            }
+                        }
+                    );
+                    return Mono.<Void>empty();
+                }
+            )
+            .onErrorResume(NoTransactionException.class, e -> action);
+    }
+}
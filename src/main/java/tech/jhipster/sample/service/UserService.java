@@ -1,10 +1,18 @@
 package tech.jhipster.sample.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Pageable;
@@ -12,15 +20,20 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
+import tech.jhipster.sample.config.ApplicationProperties;
 import tech.jhipster.sample.config.Constants;
 import tech.jhipster.sample.domain.Authority;
 import tech.jhipster.sample.domain.User;
 import tech.jhipster.sample.repository.AuthorityRepository;
 import tech.jhipster.sample.repository.UserRepository;
 import tech.jhipster.sample.security.AuthoritiesConstants;
+import tech.jhipster.sample.security.DomainUserDetailsService;
 import tech.jhipster.sample.security.SecurityUtils;
 import tech.jhipster.sample.service.dto.AdminUserDTO;
 import tech.jhipster.sample.service.dto.UserDTO;
@@ -40,10 +53,47 @@ public class UserService {
 
     private final AuthorityRepository authorityRepository;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, AuthorityRepository authorityRepository) {
+    private final Scheduler passwordHashingScheduler;
+
+    private final DomainUserDetailsService userDetailsService;
+
+    private final TransactionalOperator transactionalOperator;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final Counter cleanupDeletedUsers;
+
+    private final Timer cleanupChunks;
+
+    private final AtomicReference<Disposable> notActivatedUsersRemoval = new AtomicReference<>();
+
+    public UserService(
+        UserRepository userRepository,
+        PasswordEncoder passwordEncoder,
+        AuthorityRepository authorityRepository,
+        Scheduler passwordHashingScheduler,
+        DomainUserDetailsService userDetailsService,
+        TransactionalOperator transactionalOperator,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authorityRepository = authorityRepository;
+        this.passwordHashingScheduler = passwordHashingScheduler;
+        this.userDetailsService = userDetailsService;
+        this.transactionalOperator = transactionalOperator;
+        this.applicationProperties = applicationProperties;
+        this.cleanupDeletedUsers =
+            Counter
+                .builder("users.cleanup.deleted")
+                .description("Not activated users deleted by the nightly cleanup")
+                .register(meterRegistry);
+        this.cleanupChunks =
+            Timer
+                .builder("users.cleanup.chunks")
+                .description("Chunks of not activated users deleted in one transaction")
+                .register(meterRegistry);
     }
 
     @Transactional
@@ -68,7 +118,7 @@ public class UserService {
         return userRepository
             .findOneByResetKey(key)
             .filter(user -> user.getResetDate().isAfter(Instant.now().minusSeconds(86400)))
-            .publishOn(Schedulers.boundedElastic())
+            .publishOn(passwordHashingScheduler)
             .map(
                 user -> {
                     user.setPassword(passwordEncoder.encode(newPassword));
@@ -119,7 +169,7 @@ public class UserService {
                     }
                 }
             )
-            .publishOn(Schedulers.boundedElastic())
+            .publishOn(passwordHashingScheduler)
             .then(
                 Mono.fromCallable(
                     () -> {
@@ -177,7 +227,7 @@ public class UserService {
             .flatMap(authorityRepository::findById)
             .doOnNext(authority -> user.getAuthorities().add(authority))
             .then(Mono.just(user))
-            .publishOn(Schedulers.boundedElastic())
+            .publishOn(passwordHashingScheduler)
             .map(
                 newUser -> {
                     String encryptedPassword = passwordEncoder.encode(RandomUtil.generatePassword());
@@ -222,7 +272,7 @@ public class UserService {
                         .then(Mono.just(user));
                 }
             )
-            .flatMap(this::saveUser)
+            .flatMap(user -> saveUser(user, true))
             .doOnNext(user -> log.debug("Changed Information for User: {}", user))
             .map(AdminUserDTO::new);
     }
@@ -232,6 +282,7 @@ public class UserService {
         return userRepository
             .findOneByLogin(login)
             .flatMap(user -> userRepository.delete(user).thenReturn(user))
+            .flatMap(this::evictAfterCompletion)
             .doOnNext(user -> log.debug("Deleted User: {}", user))
             .then();
     }
@@ -268,6 +319,21 @@ public class UserService {
 
     @Transactional
     Mono<User> saveUser(User user) {
+        return saveUser(user, false);
+    }
+
+    /**
+     * Save a user, and link it to its authorities.
+     * <p>
+     * The links are written with one statement, which only inserts the missing ones. Users are often loaded without their
+     * authorities, so the links which are not in {@link User#getAuthorities()} are only deleted when asked.
+     *
+     * @param user the user to save.
+     * @param replaceAuthorities true to also delete the links to the authorities the user doesn't have anymore.
+     * @return the saved user.
+     */
+    @Transactional
+    Mono<User> saveUser(User user, boolean replaceAuthorities) {
         return SecurityUtils
             .getCurrentUserLogin()
             .switchIfEmpty(Mono.just(Constants.SYSTEM))
@@ -277,19 +343,35 @@ public class UserService {
                         user.setCreatedBy(login);
                     }
                     user.setLastModifiedBy(login);
+                    // the auditing callbacks aren't enabled, and the modification date is the entity tag of the account
+                    user.setLastModifiedDate(Instant.now());
                     // Saving the relationship can be done in an entity callback
                     // once https://github.com/spring-projects/spring-data-r2dbc/issues/215 is done
                     return userRepository
                         .save(user)
                         .flatMap(
                             savedUser ->
-                                Flux
-                                    .fromIterable(user.getAuthorities())
-                                    .flatMap(authority -> userRepository.saveUserAuthority(savedUser.getId(), authority.getName()))
-                                    .then(Mono.just(savedUser))
+                                saveUserAuthorities(savedUser.getId(), user.getAuthorities(), replaceAuthorities).thenReturn(savedUser)
                         );
                 }
-            );
+            )
+            .flatMap(this::evictAfterCompletion);
+    }
+
+    /**
+     * Evict the user details of a user once the current transaction completes.
+     */
+    private Mono<User> evictAfterCompletion(User user) {
+        return TransactionUtil.runAfterCompletion(Mono.fromRunnable(() -> userDetailsService.evict(user))).thenReturn(user);
+    }
+
+    private Mono<Void> saveUserAuthorities(Long userId, Set<Authority> authorities, boolean replaceAuthorities) {
+        List<String> names = authorities.stream().map(Authority::getName).collect(Collectors.toList());
+        if (names.isEmpty()) {
+            return replaceAuthorities ? userRepository.deleteUserAuthorities(userId) : Mono.empty();
+        }
+        Mono<Void> deleteStale = replaceAuthorities ? userRepository.deleteUserAuthoritiesNotIn(userId, names) : Mono.empty();
+        return deleteStale.then(userRepository.saveMissingUserAuthorities(userId, names));
     }
 
     @Transactional
@@ -297,7 +379,7 @@ public class UserService {
         return SecurityUtils
             .getCurrentUserLogin()
             .flatMap(userRepository::findOneByLogin)
-            .publishOn(Schedulers.boundedElastic())
+            .publishOn(passwordHashingScheduler)
             .map(
                 user -> {
                     String currentEncryptedPassword = user.getPassword();
@@ -319,6 +401,11 @@ public class UserService {
         return userRepository.findAllByIdNotNull(pageable).map(AdminUserDTO::new);
     }
 
+    @Transactional(readOnly = true)
+    public Flux<AdminUserDTO> getAllManagedUsers(Pageable pageable, EntityManager.Keyset keyset) {
+        return userRepository.findAllAfter(pageable, keyset).map(AdminUserDTO::new);
+    }
+
     @Transactional(readOnly = true)
     public Flux<UserDTO> getAllPublicUsers(Pageable pageable) {
         return userRepository.findAllByIdNotNullAndActivatedIsTrue(pageable).map(UserDTO::new);
@@ -342,21 +429,74 @@ public class UserService {
     /**
      * Not activated users should be automatically deleted after 3 days.
      * <p>
-     * This is scheduled to get fired everyday, at 01:00 (am).
+     * This is scheduled to get fired everyday, at 01:00 (am). The deletion is only started here, so that the scheduling
+     * thread is not blocked while it runs, and it is skipped while the previous one is still running, as both would lock
+     * the same users.
      */
     @Scheduled(cron = "0 0 1 * * ?")
     public void removeNotActivatedUsers() {
-        removeNotActivatedUsersReactively().blockLast();
+        Disposable running = notActivatedUsersRemoval.get();
+        if (running != null && !running.isDisposed()) {
+            log.warn("The previous deletion of the not activated users is still running");
+            return;
+        }
+        Disposable removal = removeNotActivatedUsersReactively()
+            .subscribe(
+                deleted -> log.info("Deleted {} not activated users", deleted),
+                e -> log.error("Failed to delete the not activated users", e)
+            );
+        if (!notActivatedUsersRemoval.compareAndSet(running, removal)) {
+            removal.dispose();
+        }
     }
 
-    @Transactional
-    public Flux<User> removeNotActivatedUsersReactively() {
-        return userRepository
-            .findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(
-                LocalDateTime.ofInstant(Instant.now().minus(3, ChronoUnit.DAYS), ZoneOffset.UTC)
+    /**
+     * Stop the running deletion of the not activated users, on shutdown.
+     */
+    @PreDestroy
+    public void stopRemovingNotActivatedUsers() {
+        Disposable running = notActivatedUsersRemoval.getAndSet(null);
+        if (running != null) {
+            running.dispose();
+        }
+    }
+
+    /**
+     * Delete the users not activated after 3 days, with their authorities.
+     * <p>
+     * The users are deleted by chunks of {@code application.user-cleanup.chunk-size}, each in its own transaction, with a
+     * pause between them.
+     *
+     * @return the number of deleted users.
+     */
+    public Mono<Long> removeNotActivatedUsersReactively() {
+        LocalDateTime createdBefore = LocalDateTime.ofInstant(Instant.now().minus(3, ChronoUnit.DAYS), ZoneOffset.UTC);
+        int chunkSize = applicationProperties.getUserCleanup().getChunkSize();
+        Duration pause = applicationProperties.getUserCleanup().getPause();
+        // a chunk smaller than the limit is the last one
+        return removeNotActivatedUsersChunk(createdBefore, chunkSize)
+            .expand(
+                deleted ->
+                    deleted < chunkSize ? Mono.empty() : Mono.delay(pause).then(removeNotActivatedUsersChunk(createdBefore, chunkSize))
             )
-            .flatMap(user -> userRepository.delete(user).thenReturn(user))
-            .doOnNext(user -> log.debug("Deleted User: {}", user));
+            .reduce(0L, Long::sum);
+    }
+
+    private Mono<Integer> removeNotActivatedUsersChunk(LocalDateTime createdBefore, int chunkSize) {
+        return Mono.defer(
+            () -> {
+                long start = System.nanoTime();
+                return transactionalOperator
+                    .transactional(userRepository.deleteNotActivatedUsersCreatedBefore(createdBefore, chunkSize))
+                    .doOnNext(
+                        deleted -> {
+                            cleanupChunks.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                            cleanupDeletedUsers.increment(deleted);
+                            log.debug("Deleted a chunk of {} not activated users", deleted);
+                        }
+                    );
+            }
+        );
     }
 
     /**
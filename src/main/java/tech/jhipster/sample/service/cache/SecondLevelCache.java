@@ -0,0 +1,49 @@
+package tech.jhipster.sample.service.cache;
+
+import java.time.Duration;
+import reactor.core.publisher.Mono;
+
+/**
+ * A cache shared by the instances of the application, used behind the local cache of a {@link TwoLevelCache}.
+ * <p>
+ * The values are {@link java.io.Serializable}, and the implementations are responsible for their serialization.
+ * Declaring a bean of this type is enough for the services to use it.
+ */
+public interface SecondLevelCache {
+    /**
+     * Get a value.
+     *
+     * @param cacheName the name of the cache.
+     * @param key the key of the value.
+     * @return the value, or empty if it is not in the cache.
+     */
+    Mono<Object> get(String cacheName, String key);
+
+    /**
+     * Put a value.
+     *
+     * @param cacheName the name of the cache.
+     * @param key the key of the value.
+     * @param value the value.
+     * @param timeToLive how long the value is kept.
+     * @return a Mono to signal the write.
+     */
+    Mono<Void> put(String cacheName, String key, Object value, Duration timeToLive);
+
+    /**
+     * Remove a value.
+     *
+     * @param cacheName the name of the cache.
+     * @param key the key of the value.
+     * @return a Mono to signal the removal.
+     */
+    Mono<Void> evict(String cacheName, String key);
+
+    /**
+     * Remove all the values of a cache.
+     *
+     * @param cacheName the name of the cache.
+     * @return a Mono to signal the removal.
+     */
+    Mono<Void> clear(String cacheName);
+}
@@ -0,0 +1,156 @@
+package tech.jhipster.sample.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+/**
+ * A bounded in-heap cache, backed by an optional {@link SecondLevelCache}.
+ * <p>
+ * The values are read from the local cache, then from the second level, and are loaded when they are in neither. Both
+ * levels are evicted together, but the local caches of the other instances are only refreshed when their entries
+ * expire, so the time to live bounds how stale a value can be. The second level is best effort: its failures are
+ * logged and handled as misses.
+ * <p>
+ * A value loaded while an eviction happens may be older than the write which caused it, so it is not kept: the
+ * evictions increment a generation of the cache, and the loaded value is removed again when the generation changed
+ * since the load started.
+ *
+ * @param <V> the type of the values.
+ */
+public class TwoLevelCache<V> {
+
+    private final Logger log = LoggerFactory.getLogger(TwoLevelCache.class);
+
+    private final String name;
+
+    private final Duration timeToLive;
+
+    private final Cache<String, V> localCache;
+
+    private final SecondLevelCache secondLevelCache;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * @param name the name of the cache, used for its metrics and in the second level.
+     * @param maxSize the maximum number of local entries.
+     * @param timeToLive how long the values are kept, in both levels.
+     * @param secondLevelCache the second level, or null to only cache locally.
+     * @param meterRegistry the registry of the hit, miss and eviction metrics of the local cache.
+     */
+    public TwoLevelCache(String name, int maxSize, Duration timeToLive, SecondLevelCache secondLevelCache, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.timeToLive = timeToLive;
+        this.localCache = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(timeToLive).recordStats().build();
+        this.secondLevelCache = secondLevelCache;
+        CaffeineCacheMetrics.monitor(meterRegistry, localCache, name);
+    }
+
+    /**
+     * Get a value from the cache, or load and cache it.
+     *
+     * @param key the key of the value.
+     * @param loader the loader of the value, subscribed when it is not cached.
+     * @return the value, or empty if the loader is empty.
+     */
+    public Mono<V> get(String key, Supplier<Mono<V>> loader) {
+        V value = localCache.getIfPresent(key);
+        if (value != null) {
+            return Mono.just(value);
+        }
+        return getFromSecondLevel(key)
+            .doOnNext(found -> localCache.put(key, found))
+            .switchIfEmpty(
+                Mono.defer(
+                    () -> {
+                        long loadGeneration = generation.get();
+                        return loader.get().flatMap(loaded -> put(key, loaded, loadGeneration).thenReturn(loaded));
+                    }
+                )
+            );
+    }
+
+    /**
+     * Get a value from the local cache only, without loading it.
+     *
+     * @param key the key of the value.
+     * @return the value, or null if it is not cached locally.
+     */
+    public V getIfPresent(String key) {
+        return localCache.getIfPresent(key);
+    }
+
+    /**
+     * Remove a value from both levels, when the returned Mono is subscribed.
+     *
+     * @param key the key of the value.
+     * @return a Mono to signal the removal.
+     */
+    public Mono<Void> evict(String key) {
+        Mono<Void> localEviction = Mono.fromRunnable(
+            () -> {
+                generation.incrementAndGet();
+                localCache.invalidate(key);
+            }
+        );
+        if (secondLevelCache == null) {
+            return localEviction;
+        }
+        return localEviction.then(Mono.defer(() -> secondLevelCache.evict(name, key)).onErrorResume(e -> logFailure("evict", e)));
+    }
+
+    /**
+     * Remove all the values from both levels, when the returned Mono is subscribed.
+     *
+     * @return a Mono to signal the removal.
+     */
+    public Mono<Void> clear() {
+        Mono<Void> localClear = Mono.fromRunnable(
+            () -> {
+                generation.incrementAndGet();
+                localCache.invalidateAll();
+            }
+        );
+        if (secondLevelCache == null) {
+            return localClear;
+        }
+        return localClear.then(Mono.defer(() -> secondLevelCache.clear(name)).onErrorResume(e -> logFailure("clear", e)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Mono<V> getFromSecondLevel(String key) {
+        if (secondLevelCache == null) {
+            return Mono.empty();
+        }
+        return secondLevelCache.get(name, key).map(found -> (V) found).onErrorResume(e -> logFailure("get", e));
+    }
+
+    private Mono<Void> put(String key, V value, long loadGeneration) {
+        localCache.put(key, value);
+        // checked after the put: an eviction either sees the value, or changed the generation before this check
+        if (generation.get() != loadGeneration) {
+            localCache.asMap().remove(key, value);
+            return Mono.empty();
+        }
+        if (secondLevelCache == null) {
+            return Mono.empty();
+        }
+        return secondLevelCache
+            .put(name, key, value, timeToLive)
+            .then(Mono.defer(() -> generation.get() != loadGeneration ? secondLevelCache.evict(name, key) : Mono.<Void>empty()))
+            .onErrorResume(e -> logFailure("put", e));
+    }
+
+    private <T> Mono<T> logFailure(String operation, Throwable e) {
+        log.warn("Unable to {} in the second level of cache {}: {}", operation, name, e.getMessage());
+        return Mono.empty();
+    }
+}
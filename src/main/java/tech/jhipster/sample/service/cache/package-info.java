@@ -0,0 +1,4 @@
+/**
+ * Caches of the services.
+ */
+package tech.jhipster.sample.service.cache;
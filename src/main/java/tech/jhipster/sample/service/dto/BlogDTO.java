@@ -14,6 +14,11 @@ public class BlogDTO implements Serializable {
 
     private UserDTO user;
 
+    /**
+     * The version read by the client: when it is sent back, the blog is only updated if it wasn't modified since.
+     */
+    private Long version;
+
     public Long getId() {
         return id;
     }
@@ -38,6 +43,14 @@ public class BlogDTO implements Serializable {
         this.user = user;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -66,6 +79,7 @@ public class BlogDTO implements Serializable {
             "id=" + getId() +
             ", name='" + getName() + "'" +
             ", user=" + getUser() +
+            ", version=" + getVersion() +
             "}";
     }
 }
@@ -0,0 +1,85 @@
+package tech.jhipster.sample.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * The outcome of one item of a bulk request, emitted in the order of the request.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkResultDTO<T> implements Serializable {
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        DELETED,
+        NOT_FOUND,
+        CONFLICT,
+    }
+
+    private Status status;
+
+    private Long id;
+
+    private T entity;
+
+    public BulkResultDTO() {}
+
+    public BulkResultDTO(Status status, Long id, T entity) {
+        this.status = status;
+        this.id = id;
+        this.entity = entity;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public T getEntity() {
+        return entity;
+    }
+
+    public void setEntity(T entity) {
+        this.entity = entity;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BulkResultDTO)) {
+            return false;
+        }
+        BulkResultDTO<?> that = (BulkResultDTO<?>) o;
+        return status == that.status && Objects.equals(id, that.id) && Objects.equals(entity, that.entity);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(status, id, entity);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "BulkResultDTO{" +
+            "status=" + getStatus() +
+            ", id=" + getId() +
+            ", entity=" + getEntity() +
+            "}";
+    }
+}
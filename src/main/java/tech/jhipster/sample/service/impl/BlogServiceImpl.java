@@ -1,16 +1,39 @@
 package tech.jhipster.sample.service.impl;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import tech.jhipster.sample.config.ApplicationProperties;
+import tech.jhipster.sample.config.CountMode;
 import tech.jhipster.sample.domain.Blog;
+import tech.jhipster.sample.repository.BlogProjection;
 import tech.jhipster.sample.repository.BlogRepository;
 import tech.jhipster.sample.service.BlogService;
+import tech.jhipster.sample.service.EntityManager;
+import tech.jhipster.sample.service.TransactionUtil;
+import tech.jhipster.sample.service.cache.SecondLevelCache;
+import tech.jhipster.sample.service.cache.TwoLevelCache;
 import tech.jhipster.sample.service.dto.BlogDTO;
+import tech.jhipster.sample.service.dto.BulkResultDTO;
 import tech.jhipster.sample.service.mapper.BlogMapper;
 
 /**
@@ -26,41 +49,171 @@ public class BlogServiceImpl implements BlogService {
 
     private final BlogMapper blogMapper;
 
-    public BlogServiceImpl(BlogRepository blogRepository, BlogMapper blogMapper) {
+    private final EntityManager entityManager;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final TransactionalOperator transactionalOperator;
+
+    private final TransactionalOperator readOnlyOperator;
+
+    private final AtomicReference<CachedCount> cachedCount = new AtomicReference<>();
+
+    private final TwoLevelCache<BlogDTO> blogCache;
+
+    private final TwoLevelCache<List<BlogDTO>> firstPageCache;
+
+    public BlogServiceImpl(
+        BlogRepository blogRepository,
+        BlogMapper blogMapper,
+        EntityManager entityManager,
+        ApplicationProperties applicationProperties,
+        ReactiveTransactionManager transactionManager,
+        MeterRegistry meterRegistry,
+        ObjectProvider<SecondLevelCache> secondLevelCache
+    ) {
         this.blogRepository = blogRepository;
         this.blogMapper = blogMapper;
+        this.entityManager = entityManager;
+        this.applicationProperties = applicationProperties;
+        this.transactionalOperator = TransactionalOperator.create(transactionManager);
+        DefaultTransactionDefinition readOnly = new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRED);
+        readOnly.setReadOnly(true);
+        this.readOnlyOperator = TransactionalOperator.create(transactionManager, readOnly);
+        ApplicationProperties.Blog.Cache cacheProperties = applicationProperties.getBlog().getCache();
+        if (cacheProperties.isEnabled()) {
+            int maxSize = cacheProperties.getMaxSize();
+            Duration timeToLive = cacheProperties.getTimeToLive();
+            SecondLevelCache shared = secondLevelCache.getIfAvailable();
+            this.blogCache = new TwoLevelCache<>("blogs", maxSize, timeToLive, shared, meterRegistry);
+            this.firstPageCache = new TwoLevelCache<>("blogFirstPages", maxSize, timeToLive, shared, meterRegistry);
+        } else {
+            this.blogCache = null;
+            this.firstPageCache = null;
+        }
     }
 
     @Override
     public Mono<BlogDTO> save(BlogDTO blogDTO) {
         log.debug("Request to save Blog : {}", blogDTO);
-        return blogRepository.save(blogMapper.toEntity(blogDTO)).map(blogMapper::toDto);
+        boolean created = blogDTO.getId() == null;
+        return blogRepository
+            .save(blogMapper.toEntity(blogDTO))
+            .doOnNext(
+                blog -> {
+                    if (created) {
+                        cachedCount.getAndUpdate(cached -> cached != null ? cached.add(1) : null);
+                    }
+                }
+            )
+            .map(blogMapper::toDto)
+            .flatMap(result -> invalidateCaches(Collections.singletonList(result.getId())).thenReturn(result));
     }
 
     @Override
-    public Mono<BlogDTO> partialUpdate(BlogDTO blogDTO) {
-        log.debug("Request to partially update Blog : {}", blogDTO);
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Flux<BulkResultDTO<BlogDTO>> saveAll(Flux<BlogDTO> blogDTOs) {
+        log.debug("Request to save Blogs in bulk");
+        // a single chunk is held at a time: the next one is only requested once the previous one is committed
+        return blogDTOs
+            .buffer(applicationProperties.getBlog().getBulkChunkSize())
+            .concatMap(chunk -> transactionalOperator.transactional(saveChunk(chunk)), 1);
+    }
 
-        return blogRepository
-            .findById(blogDTO.getId())
-            .map(
-                existingBlog -> {
-                    if (blogDTO.getName() != null) {
-                        existingBlog.setName(blogDTO.getName());
+    private Flux<BulkResultDTO<BlogDTO>> saveChunk(List<BlogDTO> chunk) {
+        List<Blog> created = new ArrayList<>();
+        List<Blog> updated = new ArrayList<>();
+        for (BlogDTO blogDTO : chunk) {
+            (blogDTO.getId() == null ? created : updated).add(blogMapper.toEntity(blogDTO));
+        }
+        Mono<List<BulkResultDTO<BlogDTO>>> creations = blogRepository
+            .insertAll(created)
+            .map(blog -> new BulkResultDTO<>(BulkResultDTO.Status.CREATED, blog.getId(), blogMapper.toDto(blog)))
+            .collectList();
+        Mono<List<BulkResultDTO<BlogDTO>>> updates = blogRepository
+            .updateAll(updated)
+            .zipWithIterable(
+                updated,
+                (count, blog) -> {
+                    if (count > 0) {
+                        return new BulkResultDTO<>(BulkResultDTO.Status.UPDATED, blog.getId(), blogMapper.toDto(blog));
                     }
-
-                    return existingBlog;
+                    // a blog with a version was modified or deleted since it was read
+                    BulkResultDTO.Status status = blog.getVersion() != null
+                        ? BulkResultDTO.Status.CONFLICT
+                        : BulkResultDTO.Status.NOT_FOUND;
+                    return new BulkResultDTO<BlogDTO>(status, blog.getId(), null);
                 }
             )
-            .flatMap(blogRepository::save)
-            .map(blogMapper::toDto);
+            .collectList();
+        // the statements share the connection of the transaction, so they run one after the other
+        return creations
+            .flatMap(
+                createdResults ->
+                    updates.map(
+                        updatedResults -> {
+                            cachedCount.getAndUpdate(cached -> cached != null ? cached.add(createdResults.size()) : null);
+                            Iterator<BulkResultDTO<BlogDTO>> createdIterator = createdResults.iterator();
+                            Iterator<BulkResultDTO<BlogDTO>> updatedIterator = updatedResults.iterator();
+                            List<BulkResultDTO<BlogDTO>> results = new ArrayList<>(chunk.size());
+                            for (BlogDTO blogDTO : chunk) {
+                                results.add(blogDTO.getId() == null ? createdIterator.next() : updatedIterator.next());
+                            }
+                            return results;
+                        }
+                    )
+            )
+            .flatMapMany(
+                results -> {
+                    List<Long> updatedIds = updated.stream().map(Blog::getId).collect(Collectors.toList());
+                    return invalidateCaches(updatedIds).thenMany(Flux.fromIterable(results));
+                }
+            );
     }
 
     @Override
-    @Transactional(readOnly = true)
+    public Mono<BlogDTO> partialUpdate(BlogDTO blogDTO) {
+        log.debug("Request to partially update Blog : {}", blogDTO);
+
+        // a single conditional statement, instead of reading the blog before updating it
+        Blog blog = new Blog().id(blogDTO.getId()).name(blogDTO.getName()).version(blogDTO.getVersion());
+        return blogRepository
+            .updatePartially(blog)
+            .filter(numberOfUpdates -> numberOfUpdates > 0)
+            .flatMap(numberOfUpdates -> findOneFromDatabase(blogDTO.getId()))
+            .flatMap(result -> invalidateCaches(Collections.singletonList(result.getId())).thenReturn(result));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Flux<BlogDTO> findAll(Pageable pageable) {
         log.debug("Request to get all Blogs");
-        return blogRepository.findAllBy(pageable).map(blogMapper::toDto);
+        if (firstPageCache != null && pageable.isPaged() && pageable.getPageNumber() == 0) {
+            String key = pageable.getPageSize() + ":" + pageable.getSort();
+            // loaded from the primary, as a replica lagging behind could cache again a page which was just invalidated
+            return firstPageCache
+                .get(key, () -> transactionalOperator.transactional(findAllFromDatabase(pageable).collectList()))
+                .flatMapIterable(blogs -> blogs);
+        }
+        return readOnlyOperator.transactional(findAllFromDatabase(pageable));
+    }
+
+    private Flux<BlogDTO> findAllFromDatabase(Pageable pageable) {
+        return blogRepository.findAllBy(pageable, null, BlogProjection.USER_LOGIN).map(blogMapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Flux<BlogDTO> streamAll(Pageable pageable) {
+        log.debug("Request to stream all Blogs");
+        return blogRepository.streamAllBy(pageable, BlogProjection.USER_LOGIN).map(blogMapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Flux<BlogDTO> findAll(Pageable pageable, EntityManager.Keyset keyset) {
+        log.debug("Request to get Blogs after : {}", keyset);
+        return blogRepository.findAllAfter(pageable, keyset, BlogProjection.USER_LOGIN).map(blogMapper::toDto);
     }
 
     public Mono<Long> countAll() {
@@ -68,15 +221,118 @@ public class BlogServiceImpl implements BlogService {
     }
 
     @Override
-    @Transactional(readOnly = true)
+    public Mono<Long> countAll(CountMode countMode) {
+        switch (countMode != null ? countMode : applicationProperties.getBlog().getCountMode()) {
+            case CACHED:
+                return countCached();
+            case ESTIMATE:
+                return entityManager.estimateCount(Blog.class).switchIfEmpty(Mono.defer(this::countAll));
+            case NONE:
+                return Mono.empty();
+            default:
+                return countAll();
+        }
+    }
+
+    private Mono<Long> countCached() {
+        CachedCount cached = cachedCount.get();
+        if (cached != null && cached.expiresAt - System.nanoTime() > 0) {
+            return Mono.just(cached.value);
+        }
+        long expiresAt = System.nanoTime() + applicationProperties.getBlog().getCountCacheTtl().toNanos();
+        return countAll().doOnNext(count -> cachedCount.set(new CachedCount(count, expiresAt)));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Mono<BlogDTO> findOne(Long id) {
         log.debug("Request to get Blog : {}", id);
-        return blogRepository.findById(id).map(blogMapper::toDto);
+        if (blogCache != null) {
+            // loaded from the primary, as a replica lagging behind could cache again a blog which was just invalidated
+            return blogCache.get(String.valueOf(id), () -> transactionalOperator.transactional(findOneFromDatabase(id)));
+        }
+        return readOnlyOperator.transactional(findOneFromDatabase(id));
+    }
+
+    private Mono<BlogDTO> findOneFromDatabase(Long id) {
+        return blogRepository.findById(id, BlogProjection.USER_LOGIN).map(blogMapper::toDto);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<BlogDTO> findVersionWithUser(Long id) {
+        log.debug("Request to get the version and the user of Blog : {}", id);
+        BlogDTO cached = blogCache != null ? blogCache.getIfPresent(String.valueOf(id)) : null;
+        if (cached != null && cached.getVersion() != null) {
+            return Mono.just(cached);
+        }
+        Mono<BlogDTO> blog = blogRepository.findVersionWithUserById(id).map(blogMapper::toDto);
+        // read from where findOne() loads the blog, so that a matching tag is not answered with an older blog
+        return (blogCache != null ? transactionalOperator : readOnlyOperator).transactional(blog);
     }
 
     @Override
     public Mono<Void> delete(Long id) {
         log.debug("Request to delete Blog : {}", id);
-        return blogRepository.deleteById(id);
+        // the number of deleted rows is unknown, so the cached count is dropped rather than adjusted
+        return blogRepository
+            .deleteById(id)
+            .then(invalidateCaches(Collections.singletonList(id)))
+            .doOnSuccess(result -> cachedCount.set(null));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Flux<BulkResultDTO<BlogDTO>> deleteAll(Flux<Long> ids) {
+        log.debug("Request to delete Blogs in bulk");
+        return ids
+            .buffer(applicationProperties.getBlog().getBulkChunkSize())
+            .concatMap(
+                chunk ->
+                    transactionalOperator.transactional(
+                        blogRepository
+                            .deleteAllByIds(chunk)
+                            .zipWithIterable(
+                                chunk,
+                                (count, id) ->
+                                    new BulkResultDTO<BlogDTO>(
+                                        count > 0 ? BulkResultDTO.Status.DELETED : BulkResultDTO.Status.NOT_FOUND,
+                                        id,
+                                        null
+                                    )
+                            )
+                            .collectList()
+                            .flatMapMany(results -> invalidateCaches(chunk).thenMany(Flux.fromIterable(results)))
+                            .doOnComplete(() -> cachedCount.set(null))
+                    ),
+                1
+            );
+    }
+
+    /**
+     * Evict the given blogs and the first pages, once the current transaction completes.
+     */
+    private Mono<Void> invalidateCaches(Collection<Long> ids) {
+        if (blogCache == null) {
+            return Mono.empty();
+        }
+        return TransactionUtil.runAfterCompletion(
+            Flux.fromIterable(ids).concatMap(id -> blogCache.evict(String.valueOf(id))).then(firstPageCache.clear())
+        );
+    }
+
+    private static final class CachedCount {
+
+        private final long value;
+        private final long expiresAt;
+
+        CachedCount(long value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        CachedCount add(long delta) {
+            return new CachedCount(value + delta, expiresAt);
+        }
     }
 }
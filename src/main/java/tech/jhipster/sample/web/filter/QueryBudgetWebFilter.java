@@ -0,0 +1,116 @@
+package tech.jhipster.sample.web.filter;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.util.Locale;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import reactor.core.publisher.Mono;
+import tech.jhipster.sample.config.ApplicationProperties;
+import tech.jhipster.sample.config.r2dbc.QueryStats;
+
+/**
+ * Counts the statements executed for each API request in {@link QueryStats}, and checks them against the
+ * {@code application.database.query-budget}.
+ * <p>
+ * The stats are added as a {@code Server-Timing} header of the response with {@code server-timing}, and recorded in
+ * metrics by endpoint with {@code metrics}, whose histogram buckets are only published with {@code histogram}.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class QueryBudgetWebFilter implements WebFilter {
+
+    private final Logger log = LoggerFactory.getLogger(QueryBudgetWebFilter.class);
+
+    private final ApplicationProperties.Database.QueryBudget queryBudget;
+
+    private final MeterRegistry meterRegistry;
+
+    public QueryBudgetWebFilter(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.queryBudget = applicationProperties.getDatabase().getQueryBudget();
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!exchange.getRequest().getURI().getPath().startsWith("/api")) {
+            return chain.filter(exchange);
+        }
+        QueryStats stats = new QueryStats(queryBudget.getMaxStatements(), queryBudget.getAction());
+        if (queryBudget.isServerTiming()) {
+            exchange
+                .getResponse()
+                .beforeCommit(
+                    () -> {
+                        exchange.getResponse().getHeaders().add("Server-Timing", serverTiming(stats));
+                        return Mono.empty();
+                    }
+                );
+        }
+        return chain
+            .filter(exchange)
+            .doFinally(signal -> completed(exchange, stats))
+            .contextWrite(context -> context.put(QueryStats.CONTEXT_KEY, stats));
+    }
+
+    private static String serverTiming(QueryStats stats) {
+        return String.format(
+            Locale.ROOT,
+            "db;dur=%.1f;desc=\"%d statements, %d rows\"",
+            stats.getTime().toNanos() / 1e6,
+            stats.getStatements(),
+            stats.getRows()
+        );
+    }
+
+    private void completed(ServerWebExchange exchange, QueryStats stats) {
+        String method = exchange.getRequest().getMethodValue();
+        if (stats.isOverBudget()) {
+            log.warn(
+                "{} {} executed {} statements, over the budget of {}, the most frequent query being {}",
+                method,
+                exchange.getRequest().getURI().getPath(),
+                stats.getStatements(),
+                stats.getBudget(),
+                stats.getMostFrequentQuery().orElse("none")
+            );
+        }
+        if (!queryBudget.isMetrics()) {
+            return;
+        }
+        PathPattern pattern = exchange.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        Tags tags = Tags.of("method", method, "uri", pattern != null ? pattern.getPatternString() : "UNKNOWN");
+        DistributionSummary
+            .builder("http.server.requests.db.statements")
+            .description("Statements executed by request")
+            .tags(tags)
+            .publishPercentileHistogram(queryBudget.isHistogram())
+            .register(meterRegistry)
+            .record(stats.getStatements());
+        DistributionSummary
+            .builder("http.server.requests.db.rows")
+            .description("Rows fetched or updated by request")
+            .baseUnit("rows")
+            .tags(tags)
+            .publishPercentileHistogram(queryBudget.isHistogram())
+            .register(meterRegistry)
+            .record(stats.getRows());
+        Timer
+            .builder("http.server.requests.db.time")
+            .description("Time spent executing statements by request")
+            .tags(tags)
+            .publishPercentileHistogram(queryBudget.isHistogram())
+            .register(meterRegistry)
+            .record(stats.getTime());
+    }
+}
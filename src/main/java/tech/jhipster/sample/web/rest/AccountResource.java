@@ -7,6 +7,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
@@ -20,6 +21,7 @@ import tech.jhipster.sample.service.dto.UserDTO;
 import tech.jhipster.sample.web.rest.errors.*;
 import tech.jhipster.sample.web.rest.vm.KeyAndPasswordVM;
 import tech.jhipster.sample.web.rest.vm.ManagedUserVM;
+import tech.jhipster.sample.web.util.ETagUtil;
 
 /**
  * REST controller for managing the current user's account.
@@ -94,15 +96,29 @@ public class AccountResource {
 
     /**
      * {@code GET  /account} : get the current user.
+     * <p>
+     * The entity tag of the user is its id and its last modification date, which is also returned in the
+     * {@code Last-Modified} header: a {@code 304 (Not Modified)} response is returned when the client has the current one.
      *
      * @return the current user.
      * @throws RuntimeException {@code 500 (Internal Server Error)} if the user couldn't be returned.
      */
     @GetMapping("/account")
-    public Mono<AdminUserDTO> getAccount() {
+    public Mono<ResponseEntity<AdminUserDTO>> getAccount() {
         return userService
             .getUserWithAuthorities()
             .map(AdminUserDTO::new)
+            .map(
+                user -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                    if (user.getLastModifiedDate() != null) {
+                        response
+                            .eTag(ETagUtil.entityTag(user.getId(), user.getLastModifiedDate().toEpochMilli()))
+                            .lastModified(user.getLastModifiedDate());
+                    }
+                    return response.body(user);
+                }
+            )
             .switchIfEmpty(Mono.error(new AccountResourceException("User could not be found")));
     }
 
@@ -3,7 +3,9 @@ package tech.jhipster.sample.web.rest;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,22 +13,30 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import tech.jhipster.sample.config.CountMode;
 import tech.jhipster.sample.service.BlogService;
+import tech.jhipster.sample.service.EntityManager;
 import tech.jhipster.sample.service.dto.BlogDTO;
+import tech.jhipster.sample.service.dto.BulkResultDTO;
 import tech.jhipster.sample.web.rest.errors.BadRequestAlertException;
+import tech.jhipster.sample.web.util.ETagUtil;
+import tech.jhipster.sample.web.util.KeysetPaginationUtil;
+import tech.jhipster.sample.web.util.SlicePaginationUtil;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
-import tech.jhipster.web.util.reactive.ResponseUtil;
 
 /**
  * REST controller for managing {@link tech.jhipster.sample.domain.Blog}.
@@ -39,6 +49,8 @@ public class BlogResource {
 
     private static final String ENTITY_NAME = "blog";
 
+    private static final List<String> KEYSET_PROPERTIES = Collections.singletonList("id");
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
@@ -77,12 +89,30 @@ public class BlogResource {
             );
     }
 
+    /**
+     * {@code POST  /blogs/_bulk} : Create or update a stream of blogs.
+     * <p>
+     * The blogs without id are created, the others are updated. They are written in chunks, each one in its own
+     * transaction, so the body is read as the chunks are committed.
+     *
+     * @param blogDTOs the newline delimited blogDTOs to save.
+     * @return the newline delimited result of each blogDTO, in the order of the request.
+     */
+    @PostMapping(value = "/blogs/_bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BulkResultDTO<BlogDTO>> bulkSaveBlogs(@RequestBody Flux<BlogDTO> blogDTOs) {
+        log.debug("REST request to save Blogs in bulk");
+        return blogService.saveAll(blogDTOs);
+    }
+
     /**
      * {@code PUT  /blogs} : Updates an existing blog.
+     * <p>
+     * When the blogDTO has a version, the blog is only updated if it still has this version.
      *
      * @param blogDTO the blogDTO to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated blogDTO,
      * or with status {@code 400 (Bad Request)} if the blogDTO is not valid,
+     * or with status {@code 409 (Conflict)} if the blog was modified or deleted since its version was read,
      * or with status {@code 500 (Internal Server Error)} if the blogDTO couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
@@ -106,11 +136,14 @@ public class BlogResource {
 
     /**
      * {@code PATCH  /blogs} : Updates given fields of an existing blog.
+     * <p>
+     * When the blogDTO has a version, the blog is only updated if it still has this version.
      *
      * @param blogDTO the blogDTO to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated blogDTO,
      * or with status {@code 400 (Bad Request)} if the blogDTO is not valid,
      * or with status {@code 404 (Not Found)} if the blogDTO is not found,
+     * or with status {@code 409 (Conflict)} if the blog was modified or deleted since its version was read,
      * or with status {@code 500 (Internal Server Error)} if the blogDTO couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
@@ -137,42 +170,156 @@ public class BlogResource {
     /**
      * {@code GET  /blogs} : get all the blogs.
      *
+     * <p>
+     * With the {@code after} parameter, pages are selected by keyset instead of offset, and only the link to the next page
+     * is returned: an empty value selects the first page.
+     * <p>
+     * The {@code count} parameter selects how the {@code X-Total-Count} header is computed, see {@link CountMode}: with
+     * {@code none}, the header and the link to the last page are omitted.
+     * <p>
+     * The entity tag of the page is a digest of the versions of its blogs: a {@code 304 (Not Modified)} response is
+     * returned, without writing the page, when it matches the {@code If-None-Match} header.
+     *
      * @param pageable the pagination information.
+     * @param after the keyset of the page, see {@link KeysetPaginationUtil}.
+     * @param count the count mode, or null to use the configured one.
      * @param request a {@link ServerHttpRequest} request.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of blogs in body.
      */
     @GetMapping("/blogs")
-    public Mono<ResponseEntity<List<BlogDTO>>> getAllBlogs(Pageable pageable, ServerHttpRequest request) {
+    public Mono<ResponseEntity<List<BlogDTO>>> getAllBlogs(
+        Pageable pageable,
+        @RequestParam(value = KeysetPaginationUtil.AFTER_PARAMETER, required = false) String after,
+        @RequestParam(value = "count", required = false) String count,
+        ServerHttpRequest request
+    ) {
         log.debug("REST request to get a page of Blogs");
+        if (after != null) {
+            return getBlogsAfter(pageable, after, request);
+        }
+        CountMode countMode;
+        try {
+            countMode = count != null ? CountMode.valueOf(count.toUpperCase(Locale.ROOT)) : null;
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
         return blogService
-            .countAll()
+            .countAll(countMode)
+            .map(Optional::of)
+            .defaultIfEmpty(Optional.empty())
             .zipWith(blogService.findAll(pageable).collectList())
             .map(
                 countWithEntities -> {
-                    return ResponseEntity
+                    List<BlogDTO> blogs = countWithEntities.getT2();
+                    UriComponentsBuilder uriBuilder = UriComponentsBuilder.fromHttpRequest(request);
+                    HttpHeaders headers = countWithEntities
+                        .getT1()
+                        .map(total -> PaginationUtil.generatePaginationHttpHeaders(uriBuilder, new PageImpl<>(blogs, pageable, total)))
+                        .orElseGet(
+                            () ->
+                                SlicePaginationUtil.generateSliceHttpHeaders(
+                                    uriBuilder,
+                                    new SliceImpl<>(blogs, pageable, blogs.size() == pageable.getPageSize())
+                                )
+                        );
+                    Object total = countWithEntities.getT1().orElse(null);
+                    return ResponseEntity.ok().headers(headers).eTag(blogsTag(total, blogs)).body(blogs);
+                }
+            );
+    }
+
+    /**
+     * {@code GET  /blogs} : stream all the blogs, as newline delimited JSON or server-sent events.
+     * <p>
+     * The blogs are written as they are read from the database, so the response is not buffered: without {@code page} or
+     * {@code size} parameter, all the blogs are returned, in the order of the {@code sort} parameter.
+     *
+     * @param pageable the pagination information.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the stream of blogs.
+     */
+    @GetMapping(value = "/blogs", produces = { MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE })
+    public Flux<BlogDTO> streamAllBlogs(Pageable pageable, ServerHttpRequest request) {
+        log.debug("REST request to stream Blogs");
+        MultiValueMap<String, String> parameters = request.getQueryParams();
+        boolean paged = parameters.containsKey("page") || parameters.containsKey("size");
+        return blogService.streamAll(paged ? pageable : EntityManager.unpaged(pageable.getSort()));
+    }
+
+    private Mono<ResponseEntity<List<BlogDTO>>> getBlogsAfter(Pageable pageable, String after, ServerHttpRequest request) {
+        if (!KeysetPaginationUtil.isSupportedSort(pageable, KEYSET_PROPERTIES)) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return Mono
+            .fromCallable(() -> KeysetPaginationUtil.decode(after, pageable, BlogDTO.class))
+            .flatMap(keyset -> blogService.findAll(pageable, keyset).collectList())
+            .map(
+                blogs ->
+                    ResponseEntity
                         .ok()
                         .headers(
-                            PaginationUtil.generatePaginationHttpHeaders(
-                                UriComponentsBuilder.fromHttpRequest(request),
-                                new PageImpl<>(countWithEntities.getT2(), pageable, countWithEntities.getT1())
-                            )
+                            KeysetPaginationUtil.generateKeysetHttpHeaders(UriComponentsBuilder.fromHttpRequest(request), blogs, pageable)
                         )
-                        .body(countWithEntities.getT2());
-                }
+                        .eTag(blogsTag(null, blogs))
+                        .body(blogs)
             );
     }
 
+    /**
+     * The tag of a page of blogs, which changes with their versions and the logins of their users.
+     */
+    private static String blogsTag(Object total, List<BlogDTO> blogs) {
+        List<Object> values = new ArrayList<>();
+        values.add(total);
+        for (BlogDTO blog : blogs) {
+            String login = blog.getUser() != null ? blog.getUser().getLogin() : null;
+            values.add(ETagUtil.entityTag(blog.getId(), blog.getVersion(), login));
+        }
+        return ETagUtil.digestTag(values);
+    }
+
+    /**
+     * The tag of a blog, which changes with its version and with the id and login of its user.
+     */
+    private static String blogTag(BlogDTO blog) {
+        // the blogs without user are read with an empty user
+        if (blog.getUser() == null || blog.getUser().getId() == null) {
+            return ETagUtil.entityTag(blog.getVersion());
+        }
+        return ETagUtil.entityTag(blog.getVersion(), blog.getUser().getId(), blog.getUser().getLogin());
+    }
+
     /**
      * {@code GET  /blogs/:id} : get the "id" blog.
+     * <p>
+     * The entity tag of the blog is built from its version and the id and login of its user, which are also in the body.
+     * When the request has an {@code If-None-Match} header, they are read first, from the cache or without the other
+     * columns of the blog, and the blog is only read when the tag doesn't match.
      *
      * @param id the id of the blogDTO to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the blogDTO, or with status {@code 404 (Not Found)}.
+     * @param exchange the current exchange, whose request headers are checked.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the blogDTO, with status {@code 304 (Not Modified)}
+     * if the client has its current version, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/blogs/{id}")
-    public Mono<ResponseEntity<BlogDTO>> getBlog(@PathVariable Long id) {
+    public Mono<ResponseEntity<BlogDTO>> getBlog(@PathVariable Long id, ServerWebExchange exchange) {
         log.debug("REST request to get Blog : {}", id);
-        Mono<BlogDTO> blogDTO = blogService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(blogDTO);
+        Mono<ResponseEntity<BlogDTO>> notModified = exchange.getRequest().getHeaders().getIfNoneMatch().isEmpty()
+            ? Mono.empty()
+            : blogService
+                .findVersionWithUser(id)
+                .map(BlogResource::blogTag)
+                .filter(exchange::checkNotModified)
+                .map(tag -> ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).build());
+        return notModified.switchIfEmpty(
+            Mono.defer(
+                () ->
+                    blogService
+                        .findOne(id)
+                        .map(blogDTO -> ResponseEntity.ok().eTag(blogTag(blogDTO)).body(blogDTO))
+                        .defaultIfEmpty(ResponseEntity.notFound().build())
+            )
+        );
     }
 
     /**
@@ -195,4 +342,16 @@ public class BlogResource {
                         .build()
             );
     }
+
+    /**
+     * {@code DELETE  /blogs/_bulk} : delete a stream of blogs.
+     *
+     * @param ids the newline delimited ids of the blogs to delete.
+     * @return the newline delimited result of each id, in the order of the request.
+     */
+    @DeleteMapping(value = "/blogs/_bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BulkResultDTO<BlogDTO>> bulkDeleteBlogs(@RequestBody Flux<Long> ids) {
+        log.debug("REST request to delete Blogs in bulk");
+        return blogService.deleteAll(ids);
+    }
 }
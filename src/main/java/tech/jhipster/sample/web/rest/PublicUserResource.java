@@ -9,16 +9,17 @@ import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.util.UriComponentsBuilder;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import tech.jhipster.sample.service.UserService;
 import tech.jhipster.sample.service.dto.UserDTO;
+import tech.jhipster.sample.web.util.ETagUtil;
 import tech.jhipster.web.util.PaginationUtil;
 
 @RestController
@@ -42,10 +43,11 @@ public class PublicUserResource {
      *
      * @param request a {@link ServerHttpRequest} request.
      * @param pageable the pagination information.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body all users.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body all users, or with status
+     * {@code 304 (Not Modified)} if the page matches the {@code If-None-Match} header.
      */
     @GetMapping("/users")
-    public Mono<ResponseEntity<Flux<UserDTO>>> getAllPublicUsers(ServerHttpRequest request, Pageable pageable) {
+    public Mono<ResponseEntity<List<UserDTO>>> getAllPublicUsers(ServerHttpRequest request, Pageable pageable) {
         log.debug("REST request to get all public User names");
         if (!onlyContainsAllowedProperties(pageable)) {
             return Mono.just(ResponseEntity.badRequest().build());
@@ -53,9 +55,30 @@ public class PublicUserResource {
 
         return userService
             .countManagedUsers()
-            .map(total -> new PageImpl<>(new ArrayList<>(), pageable, total))
-            .map(page -> PaginationUtil.generatePaginationHttpHeaders(UriComponentsBuilder.fromHttpRequest(request), page))
-            .map(headers -> ResponseEntity.ok().headers(headers).body(userService.getAllPublicUsers(pageable)));
+            .zipWith(userService.getAllPublicUsers(pageable).collectList())
+            .map(
+                totalWithUsers -> {
+                    long total = totalWithUsers.getT1();
+                    List<UserDTO> users = totalWithUsers.getT2();
+                    HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(
+                        UriComponentsBuilder.fromHttpRequest(request),
+                        new PageImpl<>(users, pageable, total)
+                    );
+                    return ResponseEntity.ok().headers(headers).eTag(usersTag(total, users)).body(users);
+                }
+            );
+    }
+
+    /**
+     * The tag of a page of users, a digest of its public informations: their ids and logins.
+     */
+    private static String usersTag(long total, List<UserDTO> users) {
+        List<Object> values = new ArrayList<>();
+        values.add(total);
+        for (UserDTO user : users) {
+            values.add(ETagUtil.entityTag(user.getId(), user.getLogin()));
+        }
+        return ETagUtil.digestTag(values);
     }
 
     private boolean onlyContainsAllowedProperties(Pageable pageable) {
@@ -33,6 +33,7 @@ import tech.jhipster.sample.service.dto.AdminUserDTO;
 import tech.jhipster.sample.web.rest.errors.BadRequestAlertException;
 import tech.jhipster.sample.web.rest.errors.EmailAlreadyUsedException;
 import tech.jhipster.sample.web.rest.errors.LoginAlreadyUsedException;
+import tech.jhipster.sample.web.util.KeysetPaginationUtil;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
 
@@ -68,6 +69,8 @@ public class UserResource {
         Arrays.asList("id", "login", "firstName", "lastName", "email", "activated", "langKey")
     );
 
+    private static final List<String> KEYSET_PROPERTIES = Collections.unmodifiableList(Arrays.asList("id", "login"));
+
     private final Logger log = LoggerFactory.getLogger(UserResource.class);
 
     @Value("${jhipster.clientApp.name}")
@@ -187,17 +190,29 @@ public class UserResource {
     /**
      * {@code GET /admin/users} : get all users with all the details - calling this are only allowed for the administrators.
      *
+     * <p>
+     * With the {@code after} parameter, pages are selected by keyset instead of offset, and only the link to the next page
+     * is returned: an empty value selects the first page.
+     *
      * @param request a {@link ServerHttpRequest} request.
      * @param pageable the pagination information.
+     * @param after the keyset of the page, see {@link KeysetPaginationUtil}.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body all users.
      */
     @GetMapping("/users")
     @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
-    public Mono<ResponseEntity<Flux<AdminUserDTO>>> getAllUsers(ServerHttpRequest request, Pageable pageable) {
+    public Mono<ResponseEntity<Flux<AdminUserDTO>>> getAllUsers(
+        ServerHttpRequest request,
+        Pageable pageable,
+        @RequestParam(value = KeysetPaginationUtil.AFTER_PARAMETER, required = false) String after
+    ) {
         log.debug("REST request to get all User for an admin");
         if (!onlyContainsAllowedProperties(pageable)) {
             return Mono.just(ResponseEntity.badRequest().build());
         }
+        if (after != null) {
+            return getUsersAfter(request, pageable, after);
+        }
 
         return userService
             .countManagedUsers()
@@ -206,6 +221,24 @@ public class UserResource {
             .map(headers -> ResponseEntity.ok().headers(headers).body(userService.getAllManagedUsers(pageable)));
     }
 
+    private Mono<ResponseEntity<Flux<AdminUserDTO>>> getUsersAfter(ServerHttpRequest request, Pageable pageable, String after) {
+        if (!KeysetPaginationUtil.isSupportedSort(pageable, KEYSET_PROPERTIES)) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return Mono
+            .fromCallable(() -> KeysetPaginationUtil.decode(after, pageable, AdminUserDTO.class))
+            .flatMap(keyset -> userService.getAllManagedUsers(pageable, keyset).collectList())
+            .map(
+                users ->
+                    ResponseEntity
+                        .ok()
+                        .headers(
+                            KeysetPaginationUtil.generateKeysetHttpHeaders(UriComponentsBuilder.fromHttpRequest(request), users, pageable)
+                        )
+                        .body(Flux.fromIterable(users))
+            );
+    }
+
     private boolean onlyContainsAllowedProperties(Pageable pageable) {
         return pageable.getSort().stream().map(Sort.Order::getProperty).allMatch(ALLOWED_ORDERED_PROPERTIES::contains);
     }
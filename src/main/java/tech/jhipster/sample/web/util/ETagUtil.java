@@ -0,0 +1,45 @@
+package tech.jhipster.sample.web.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.StringJoiner;
+import org.springframework.util.DigestUtils;
+
+/**
+ * Utility class for building strong entity tags.
+ * <p>
+ * The tags are set with {@link org.springframework.http.ResponseEntity.HeadersBuilder#eTag(String)}: the
+ * {@code If-None-Match} header of the GET requests is then checked by Spring before the body is written, and a
+ * {@code 304 (Not Modified)} response is returned without serializing it when the tag matches.
+ */
+public final class ETagUtil {
+
+    private ETagUtil() {}
+
+    /**
+     * Build the tag of a single entity from the values which change with its representation, like its version.
+     *
+     * @param values the values.
+     * @return the quoted tag.
+     */
+    public static String entityTag(Object... values) {
+        StringJoiner tag = new StringJoiner("-", "\"", "\"");
+        for (Object value : values) {
+            tag.add(String.valueOf(value));
+        }
+        return tag.toString();
+    }
+
+    /**
+     * Build the tag of a list of entities, as a digest of the values which change with its representation.
+     *
+     * @param values the values, like the id and the version of each entity.
+     * @return the quoted tag.
+     */
+    public static String digestTag(Iterable<?> values) {
+        StringJoiner content = new StringJoiner("\n");
+        for (Object value : values) {
+            content.add(String.valueOf(value));
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
@@ -0,0 +1,126 @@
+package tech.jhipster.sample.web.util;
+
+import java.beans.PropertyDescriptor;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriComponentsBuilder;
+import tech.jhipster.sample.service.EntityManager.Keyset;
+
+/**
+ * Utility class for handling keyset (seek) pagination.
+ * <p>
+ * The position of a page is given by the {@code after} request parameter, an opaque token holding the sort value and
+ * the id of the last element of the previous page. The link to the next page is returned in the
+ * <a href="https://tools.ietf.org/html/rfc5988">Link header</a>, as long as the pages are full.
+ */
+public final class KeysetPaginationUtil {
+
+    public static final String AFTER_PARAMETER = "after";
+
+    private static final String HEADER_LINK_FORMAT = "<%s>; rel=\"%s\"";
+    private static final String SEPARATOR = ".";
+
+    private static final ConversionService conversionService = DefaultConversionService.getSharedInstance();
+
+    private KeysetPaginationUtil() {}
+
+    /**
+     * Check that the requested sort can be used to seek pages.
+     *
+     * @param pageable the pagination information.
+     * @param allowedProperties the non-nullable properties, which can be used to sort the pages.
+     * @return true if the pages are sorted by at most one of the allowed properties.
+     */
+    public static boolean isSupportedSort(Pageable pageable, Collection<String> allowedProperties) {
+        List<Sort.Order> orders = pageable.getSort().toList();
+        return orders.size() <= 1 && orders.stream().map(Sort.Order::getProperty).allMatch(allowedProperties::contains);
+    }
+
+    /**
+     * Decode the position of a page.
+     *
+     * @param after the token of the {@code after} request parameter, empty for the first page.
+     * @param pageable the pagination information.
+     * @param type the type of the returned elements, which holds the sort and id properties.
+     * @return the keyset of the page.
+     * @throws ResponseStatusException with status {@code 400 (Bad Request)} if the token is invalid.
+     */
+    public static Keyset decode(String after, Pageable pageable, Class<?> type) {
+        if (after == null || after.isEmpty()) {
+            return Keyset.first();
+        }
+        List<String> properties = keyProperties(pageable);
+        String[] tokens = after.split("\\" + SEPARATOR, -1);
+        if (tokens.length != properties.size()) {
+            throw invalidToken(null);
+        }
+        try {
+            List<Object> values = new ArrayList<>();
+            for (int i = 0; i < tokens.length; i++) {
+                String value = new String(Base64.getUrlDecoder().decode(tokens[i]), StandardCharsets.UTF_8);
+                PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(type, properties.get(i));
+                if (descriptor == null) {
+                    throw invalidToken(null);
+                }
+                values.add(conversionService.convert(value, descriptor.getPropertyType()));
+            }
+            return values.size() == 1 ? Keyset.after(values.get(0)) : Keyset.after(values.get(0), values.get(1));
+        } catch (IllegalArgumentException | ConversionException e) {
+            throw invalidToken(e);
+        }
+    }
+
+    /**
+     * Generate the Link header to the page following the given elements.
+     *
+     * @param uriBuilder the builder of the request URI.
+     * @param content the elements of the current page.
+     * @param pageable the pagination information.
+     * @return http header with the {@code next} link, empty if this is the last page.
+     */
+    public static HttpHeaders generateKeysetHttpHeaders(UriComponentsBuilder uriBuilder, List<?> content, Pageable pageable) {
+        HttpHeaders headers = new HttpHeaders();
+        if (content.isEmpty() || content.size() < pageable.getPageSize()) {
+            return headers;
+        }
+        BeanWrapperImpl last = new BeanWrapperImpl(content.get(content.size() - 1));
+        List<String> tokens = new ArrayList<>();
+        for (String property : keyProperties(pageable)) {
+            String value = conversionService.convert(last.getPropertyValue(property), String.class);
+            tokens.add(Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8)));
+        }
+        String link = uriBuilder
+            .replaceQueryParam("page")
+            .replaceQueryParam(AFTER_PARAMETER, String.join(SEPARATOR, tokens))
+            .toUriString()
+            .replace(",", "%2C")
+            .replace(";", "%3B");
+        headers.add(HttpHeaders.LINK, String.format(HEADER_LINK_FORMAT, link, "next"));
+        return headers;
+    }
+
+    private static List<String> keyProperties(Pageable pageable) {
+        List<String> properties = new ArrayList<>();
+        for (Sort.Order order : Keyset.sort(pageable.getSort())) {
+            properties.add(order.getProperty());
+        }
+        return properties;
+    }
+
+    private static ResponseStatusException invalidToken(Throwable cause) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid " + AFTER_PARAMETER + " parameter", cause);
+    }
+}
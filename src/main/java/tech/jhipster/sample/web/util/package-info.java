@@ -0,0 +1,4 @@
+/**
+ * Utility classes for the web layer.
+ */
+package tech.jhipster.sample.web.util;
@@ -0,0 +1,40 @@
+package tech.jhipster.sample.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Test class for the validation of the {@link ApplicationProperties}.
+ */
+class ApplicationPropertiesTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+        .withUserConfiguration(PropertiesConfiguration.class);
+
+    @Test
+    void testDefaultsAreValid() {
+        contextRunner.run(context -> assertThat(context).hasNotFailed().hasSingleBean(ApplicationProperties.class));
+    }
+
+    @Test
+    void testChunkSizesMustBePositive() {
+        for (String property : new String[] {
+            "application.database.link-table-chunk-size",
+            "application.database.fetch-size",
+            "application.blog.bulk-chunk-size",
+            "application.user-cleanup.chunk-size",
+        }) {
+            contextRunner
+                .withPropertyValues(property + "=0")
+                .run(context -> assertThat(context).hasFailed().getFailure().hasStackTraceContaining(property));
+        }
+    }
+
+    @Configuration
+    @EnableConfigurationProperties(ApplicationProperties.class)
+    static class PropertiesConfiguration {}
+}
@@ -0,0 +1,30 @@
+package tech.jhipster.sample.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import tech.jhipster.sample.IntegrationTest;
+import tech.jhipster.sample.config.r2dbc.MeteredConnectionPool;
+
+/**
+ * Integration tests for the connection pool of {@link DatabaseConfiguration}.
+ */
+@IntegrationTest
+class DatabaseConfigurationIT {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void thePoolGaugesArePublished() {
+        assertThat(meterRegistry.find("r2dbc.pool.acquired").tag("name", "connectionFactory").gauge()).isNotNull();
+        assertThat(meterRegistry.find("r2dbc.pool.max.allocated").tag("name", "connectionFactory").gauge()).isNotNull();
+    }
+
+    @Test
+    void theAcquireTimeIsPublished() {
+        assertThat(meterRegistry.find(MeteredConnectionPool.ACQUIRE_METRIC_NAME).tag("name", "connectionFactory").timers()).isNotEmpty();
+    }
+}
@@ -0,0 +1,192 @@
+package tech.jhipster.sample.config.r2dbc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Test class for the {@link InstrumentedConnectionFactory}, with an in-memory H2 database.
+ */
+class InstrumentedConnectionFactoryTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private InstrumentedConnectionFactory connectionFactory;
+
+    private DatabaseClient databaseClient;
+
+    @BeforeEach
+    void createDatabase() {
+        connectionFactory = new InstrumentedConnectionFactory(
+            ConnectionFactories.get("r2dbc:h2:mem:///" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"),
+            meterRegistry,
+            Duration.ofMinutes(1),
+            false
+        );
+        databaseClient = DatabaseClient.create(connectionFactory);
+        databaseClient.sql("CREATE TABLE item (id BIGINT PRIMARY KEY, name VARCHAR(50))").then().block();
+    }
+
+    @Test
+    void testStatementsAreTaggedWithTheirTemplate() {
+        insert(1L, "a");
+        insert(2L, "b");
+        selectIds().block();
+
+        assertThat(timer("insert item", "success").count()).isEqualTo(2);
+        assertThat(rows("insert item", "updated").totalAmount()).isEqualTo(2);
+        assertThat(timer("select item", "success").count()).isEqualTo(1);
+        assertThat(rows("select item", "fetched").totalAmount()).isEqualTo(2);
+    }
+
+    @Test
+    void testStatementsAreTaggedWithTheQueryNameOfTheContext() {
+        insert(1L, "a");
+        databaseClient
+            .sql("UPDATE item SET name = :name WHERE id = :id")
+            .bind("name", "b")
+            .bind("id", 1L)
+            .fetch()
+            .rowsUpdated()
+            .contextWrite(Context.of(InstrumentedConnectionFactory.QUERY_NAME_KEY, "ItemRepository.rename"))
+            .block();
+
+        assertThat(timer("ItemRepository.rename", "success").count()).isEqualTo(1);
+        assertThat(rows("ItemRepository.rename", "updated").totalAmount()).isEqualTo(1);
+        assertThat(meterRegistry.find(InstrumentedConnectionFactory.QUERY_METRIC_NAME).tag("query", "update item").timer()).isNull();
+    }
+
+    @Test
+    void testEachResultOfABatchIsTimedFromThePreviousOne() {
+        long start = System.nanoTime();
+        Flux
+            .usingWhen(
+                connectionFactory.create(),
+                connection -> {
+                    Statement statement = connection.createStatement("INSERT INTO item (id, name) VALUES ($1, $2)");
+                    statement.bind(0, 1L).bind(1, "a").add().bind(0, 2L).bind(1, "b").add().bind(0, 3L).bind(1, "c");
+                    return Flux
+                        .from(statement.execute())
+                        .concatMap(result -> Mono.delay(Duration.ofMillis(50)).thenMany(result.getRowsUpdated()));
+                },
+                Connection::close
+            )
+            .blockLast();
+        long elapsed = System.nanoTime() - start;
+
+        Timer timer = timer("insert item", "success");
+        assertThat(timer.count()).isEqualTo(3);
+        // the results don't all count the time since the execution of the statement
+        assertThat(timer.totalTime(TimeUnit.NANOSECONDS)).isLessThanOrEqualTo(elapsed);
+        assertThat(rows("insert item", "updated").totalAmount()).isEqualTo(3);
+    }
+
+    @Test
+    void testTheStatementsOfABatchAreTimed() {
+        QueryStats stats = new QueryStats(10, QueryStats.BudgetAction.LOG);
+        Flux
+            .usingWhen(
+                connectionFactory.create(),
+                connection ->
+                    Flux
+                        .from(
+                            connection
+                                .createBatch()
+                                .add("INSERT INTO item (id, name) VALUES (1, 'a')")
+                                .add("INSERT INTO item (id, name) VALUES (2, 'b')")
+                                .add("DELETE FROM item WHERE id = 1")
+                                .execute()
+                        )
+                        .concatMap(Result::getRowsUpdated),
+                Connection::close
+            )
+            .contextWrite(Context.of(QueryStats.CONTEXT_KEY, stats))
+            .blockLast();
+
+        assertThat(timer("insert item", "success").count()).isEqualTo(2);
+        assertThat(rows("insert item", "updated").totalAmount()).isEqualTo(2);
+        assertThat(timer("delete item", "success").count()).isEqualTo(1);
+        assertThat(rows("delete item", "updated").totalAmount()).isEqualTo(1);
+        assertThat(stats.getStatements()).isEqualTo(3);
+    }
+
+    @Test
+    void testFailedStatementsAreRecorded() {
+        insert(1L, "a");
+        assertThatThrownBy(() -> insert(1L, "b")).isInstanceOf(Exception.class);
+
+        assertThat(timer("insert item", "error").count()).isEqualTo(1);
+    }
+
+    @Test
+    void testStatementsAreCountedInTheQueryStatsOfTheContext() {
+        insert(1L, "a");
+        insert(2L, "b");
+        QueryStats stats = new QueryStats(2, QueryStats.BudgetAction.LOG);
+        selectIds().contextWrite(Context.of(QueryStats.CONTEXT_KEY, stats)).block();
+        selectIds().contextWrite(Context.of(QueryStats.CONTEXT_KEY, stats)).block();
+        assertThat(stats.getStatements()).isEqualTo(2);
+        assertThat(stats.getRows()).isEqualTo(4);
+        assertThat(stats.isOverBudget()).isFalse();
+
+        // over the budget, the statements are still executed with the LOG action
+        selectIds().contextWrite(Context.of(QueryStats.CONTEXT_KEY, stats)).block();
+        assertThat(stats.isOverBudget()).isTrue();
+        assertThat(stats.getMostFrequentQuery()).contains("select item x 3");
+    }
+
+    @Test
+    void testStatementsOverTheBudgetFail() {
+        insert(1L, "a");
+        QueryStats stats = new QueryStats(1, QueryStats.BudgetAction.FAIL);
+        selectIds().contextWrite(Context.of(QueryStats.CONTEXT_KEY, stats)).block();
+
+        assertThatThrownBy(() -> selectIds().contextWrite(Context.of(QueryStats.CONTEXT_KEY, stats)).block())
+            .isInstanceOf(QueryBudgetExceededException.class)
+            .hasMessageContaining("select item x 2");
+        assertThat(timer("select item", "success").count()).isEqualTo(1);
+    }
+
+    @Test
+    void testTemplate() {
+        assertThat(InstrumentedConnectionFactory.template("SELECT e.id FROM blog e LEFT OUTER JOIN jhi_user u ON u.id = e.user_id"))
+            .isEqualTo("select blog");
+        assertThat(InstrumentedConnectionFactory.template("INSERT INTO \"BLOG\" (name) VALUES ($1)")).isEqualTo("insert blog");
+        assertThat(InstrumentedConnectionFactory.template("update blog set version = version + 1")).isEqualTo("update blog");
+        assertThat(InstrumentedConnectionFactory.template("DELETE FROM jhi_user WHERE id = $1")).isEqualTo("delete jhi_user");
+        assertThat(InstrumentedConnectionFactory.template("SELECT 1")).isEqualTo("other");
+    }
+
+    private void insert(Long id, String name) {
+        databaseClient.sql("INSERT INTO item (id, name) VALUES (:id, :name)").bind("id", id).bind("name", name).then().block();
+    }
+
+    private Mono<List<Long>> selectIds() {
+        return databaseClient.sql("SELECT id FROM item").map(row -> row.get("id", Long.class)).all().collectList();
+    }
+
+    private Timer timer(String query, String outcome) {
+        return meterRegistry.get(InstrumentedConnectionFactory.QUERY_METRIC_NAME).tag("query", query).tag("outcome", outcome).timer();
+    }
+
+    private DistributionSummary rows(String query, String type) {
+        return meterRegistry.get(InstrumentedConnectionFactory.ROWS_METRIC_NAME).tag("query", query).tag("type", type).summary();
+    }
+}
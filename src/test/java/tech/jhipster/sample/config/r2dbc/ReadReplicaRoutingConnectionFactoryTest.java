@@ -0,0 +1,159 @@
+package tech.jhipster.sample.config.r2dbc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.R2dbcNonTransientResourceException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import tech.jhipster.sample.config.r2dbc.ReadReplicaRoutingConnectionFactory.Selection;
+
+/**
+ * Test class for the {@link ReadReplicaRoutingConnectionFactory}, with in-memory H2 databases as primary and replicas.
+ */
+class ReadReplicaRoutingConnectionFactoryTest {
+
+    private final List<MeteredConnectionPool> pools = new ArrayList<>();
+
+    private ReadReplicaRoutingConnectionFactory connectionFactory;
+
+    private DatabaseClient databaseClient;
+
+    private ReadOnlyRoutingTransactionManager transactionManager;
+
+    @AfterEach
+    void disposePools() {
+        pools.forEach(MeteredConnectionPool::dispose);
+    }
+
+    @Test
+    void testReadOnlyTransactionsUseTheReplica() {
+        route(database("primary"), Collections.singletonList(database("replica")), Selection.ROUND_ROBIN);
+
+        assertThat(readNode(readOnly())).isEqualTo("replica");
+        assertThat(readNode(new DefaultTransactionDefinition())).isEqualTo("primary");
+        assertThat(readNodeWithoutTransaction()).isEqualTo("primary");
+    }
+
+    @Test
+    void testReplicasAreSelectedInTurn() {
+        route(database("primary"), Arrays.asList(database("replica-1"), database("replica-2")), Selection.ROUND_ROBIN);
+
+        assertThat(readNode(readOnly())).isEqualTo("replica-1");
+        assertThat(readNode(readOnly())).isEqualTo("replica-2");
+        assertThat(readNode(readOnly())).isEqualTo("replica-1");
+    }
+
+    @Test
+    void testReplicaWithLeastPendingConnectionsIsSelected() {
+        route(database("primary"), Arrays.asList(database("replica-1"), database("replica-2")), Selection.LEAST_PENDING);
+
+        // the replicas are idle, so the first one is selected, and its connection is kept
+        Connection connection = Mono
+            .from(connectionFactory.create())
+            .contextWrite(Context.of(ReadReplicaRoutingConnectionFactory.READ_ONLY_KEY, true))
+            .block();
+        try {
+            assertThat(readNode(readOnly())).isEqualTo("replica-2");
+            assertThat(readNode(readOnly())).isEqualTo("replica-2");
+        } finally {
+            Mono.from(connection.close()).block();
+        }
+    }
+
+    @Test
+    void testFailingReplicaIsSkipped() {
+        AtomicInteger attempts = new AtomicInteger();
+        ConnectionFactory failingReplica = new ConnectionFactory() {
+            @Override
+            public Publisher<? extends Connection> create() {
+                return Mono.defer(
+                    () -> {
+                        attempts.incrementAndGet();
+                        return Mono.error(new R2dbcNonTransientResourceException("The replica is down"));
+                    }
+                );
+            }
+
+            @Override
+            public ConnectionFactoryMetadata getMetadata() {
+                return () -> "H2";
+            }
+        };
+        route(database("primary"), Collections.singletonList(pool(failingReplica)), Selection.ROUND_ROBIN);
+
+        assertThat(readNode(readOnly())).isEqualTo("primary");
+        int attemptsAfterFailure = attempts.get();
+        assertThat(attemptsAfterFailure).isPositive();
+
+        // the replica is not tried again before the retry interval
+        assertThat(readNode(readOnly())).isEqualTo("primary");
+        assertThat(attempts.get()).isEqualTo(attemptsAfterFailure);
+    }
+
+    private void route(MeteredConnectionPool primary, List<MeteredConnectionPool> replicas, Selection selection) {
+        connectionFactory = new ReadReplicaRoutingConnectionFactory(primary, replicas, selection, Duration.ofMinutes(1));
+        databaseClient = DatabaseClient.create(connectionFactory);
+        transactionManager = new ReadOnlyRoutingTransactionManager(connectionFactory);
+    }
+
+    /**
+     * Create an in-memory database, whose single row holds its name.
+     */
+    private MeteredConnectionPool database(String name) {
+        ConnectionFactory connectionFactory = ConnectionFactories.get("r2dbc:h2:mem:///" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        DatabaseClient client = DatabaseClient.create(connectionFactory);
+        client.sql("CREATE TABLE node (name VARCHAR(50))").then().block();
+        client.sql("INSERT INTO node (name) VALUES (:name)").bind("name", name).then().block();
+        return pool(connectionFactory);
+    }
+
+    private MeteredConnectionPool pool(ConnectionFactory connectionFactory) {
+        ConnectionPoolConfiguration configuration = ConnectionPoolConfiguration
+            .builder(connectionFactory)
+            .initialSize(0)
+            .maxSize(2)
+            .build();
+        MeteredConnectionPool pool = new MeteredConnectionPool(new ConnectionPool(configuration), "test", new SimpleMeterRegistry());
+        pools.add(pool);
+        return pool;
+    }
+
+    private static TransactionDefinition readOnly() {
+        DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+        definition.setReadOnly(true);
+        return definition;
+    }
+
+    private String readNode(TransactionDefinition definition) {
+        return TransactionalOperator.create(transactionManager, definition).transactional(selectNode()).block();
+    }
+
+    private String readNodeWithoutTransaction() {
+        return selectNode().block();
+    }
+
+    private Mono<String> selectNode() {
+        return databaseClient.sql("SELECT name FROM node").map(row -> row.get(0, String.class)).one();
+    }
+}
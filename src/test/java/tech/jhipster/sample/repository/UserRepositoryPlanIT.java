@@ -0,0 +1,249 @@
+package tech.jhipster.sample.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.repository.support.R2dbcRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+import org.springframework.r2dbc.connection.DelegatingConnectionFactory;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import tech.jhipster.sample.IntegrationTest;
+import tech.jhipster.sample.config.Constants;
+import tech.jhipster.sample.repository.rowmapper.UserRowMapper;
+
+/**
+ * Integration tests checking that the lookups of {@link UserRepository} by key, and the cleanup of the not activated
+ * users, use the indexes of {@code jhi_user}.
+ * <p>
+ * The statements are those executed by the repository, explained with the values they were bound to: prepared, then
+ * explained with {@code EXPLAIN EXECUTE} on PostgreSQL with the {@code testcontainers} profile, and explained with their
+ * bindings on H2. The table holds enough users, most of them activated, for the plans to be those of a real table.
+ */
+@IntegrationTest
+class UserRepositoryPlanIT {
+
+    private static final String LOGIN_PREFIX = "plan-";
+
+    private static final String PASSWORD_HASH = RandomStringUtils.random(60);
+
+    private static final int ACTIVATED_USERS = 4000;
+
+    private static final int NOT_ACTIVATED_USERS = 1000;
+
+    private static final int EXPIRED_USERS = 10;
+
+    private static final int RESET_USERS = 50;
+
+    private static final LocalDateTime EXPIRY = LocalDateTime.now().minusDays(3).truncatedTo(ChronoUnit.SECONDS);
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private R2dbcEntityTemplate r2dbcEntityTemplate;
+
+    @Autowired
+    private UserRowMapper userRowMapper;
+
+    @Autowired
+    private TransactionalOperator transactionalOperator;
+
+    private final List<ExecutedStatement> statements = new CopyOnWriteArrayList<>();
+
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void createUsers() {
+        deleteUsers();
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Flux
+            .usingWhen(
+                connectionFactory.create(),
+                connection -> {
+                    Statement statement = connection.createStatement(
+                        "INSERT INTO jhi_user (login, password_hash, email, activated, activation_key, reset_key, created_by," +
+                        " created_date) VALUES ($1, $2, $3, $4, $5, $6, $7, $8)"
+                    );
+                    int users = ACTIVATED_USERS + NOT_ACTIVATED_USERS + EXPIRED_USERS;
+                    for (int i = 0; i < users; i++) {
+                        boolean activated = i < ACTIVATED_USERS;
+                        boolean expired = i >= ACTIVATED_USERS + NOT_ACTIVATED_USERS;
+                        if (i > 0) {
+                            statement.add();
+                        }
+                        statement.bind(0, LOGIN_PREFIX + i).bind(1, PASSWORD_HASH).bind(2, LOGIN_PREFIX + i + "@localhost");
+                        statement.bind(3, activated);
+                        bind(statement, 4, activated ? null : "plan-key-" + i);
+                        bind(statement, 5, i < RESET_USERS ? "plan-reset-" + i : null);
+                        statement.bind(6, Constants.SYSTEM).bind(7, expired ? EXPIRY.minusDays(1) : now);
+                    }
+                    return Flux.from(statement.execute()).concatMap(Result::getRowsUpdated);
+                },
+                Connection::close
+            )
+            .blockLast();
+        databaseClient.sql(isPostgreSQL() ? "ANALYZE jhi_user" : "ANALYZE TABLE jhi_user").then().block();
+
+        ConnectionFactory recordingConnectionFactory = new DelegatingConnectionFactory(connectionFactory) {
+            @Override
+            public Mono<? extends Connection> create() {
+                return Mono.from(super.create()).map(connection -> recording(connection, Connection.class, null));
+            }
+        };
+        R2dbcEntityTemplate template = new R2dbcEntityTemplate(
+            DatabaseClient.create(recordingConnectionFactory),
+            r2dbcEntityTemplate.getDataAccessStrategy()
+        );
+        userRepository =
+            new R2dbcRepositoryFactory(template)
+            .getRepository(
+                UserRepository.class,
+                RepositoryFragments.just(new UserRepositoryInternalImpl(template.getDatabaseClient(), template, userRowMapper))
+            );
+    }
+
+    @AfterEach
+    void deleteUsers() {
+        databaseClient.sql("DELETE FROM jhi_user WHERE login LIKE :login").bind("login", LOGIN_PREFIX + "%").then().block();
+    }
+
+    @Test
+    void findOneByActivationKeyUsesTheActivationKeyIndex() {
+        assertThat(userRepository.findOneByActivationKey("plan-key-" + ACTIVATED_USERS).block()).isNotNull();
+
+        assertThat(explainFirstStatement()).containsIgnoringCase("idx_user_activation_key");
+    }
+
+    @Test
+    void findOneByResetKeyUsesTheResetKeyIndex() {
+        assertThat(userRepository.findOneByResetKey("plan-reset-1").block()).isNotNull();
+
+        assertThat(explainFirstStatement()).containsIgnoringCase("idx_user_reset_key");
+    }
+
+    @Test
+    void findAllNotActivatedUsersCreatedBeforeUsesTheCreatedDateIndex() {
+        assertThat(userRepository.findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(EXPIRY).collectList().block())
+            .hasSize(EXPIRED_USERS);
+
+        assertThat(explainFirstStatement()).containsIgnoringCase("idx_user_not_activated_created_date");
+    }
+
+    @Test
+    void deleteNotActivatedUsersCreatedBeforeUsesTheCreatedDateIndex() {
+        assertThat(userRepository.deleteNotActivatedUsersCreatedBefore(EXPIRY, 500).block()).isEqualTo(EXPIRED_USERS);
+
+        // the users to delete are selected, then deleted by id
+        assertThat(statements.get(0).sql).contains("FOR UPDATE");
+        assertThat(explainFirstStatement()).containsIgnoringCase("idx_user_not_activated_created_date");
+    }
+
+    private String explainFirstStatement() {
+        assertThat(statements).isNotEmpty();
+        ExecutedStatement statement = statements.get(0);
+        if (!isPostgreSQL()) {
+            return bind(databaseClient.sql("EXPLAIN " + statement.sql), statement.bindings)
+                .map(row -> row.get(0, String.class))
+                .all()
+                .collect(Collectors.joining("\n"))
+                .block();
+        }
+        // the connection holding the prepared statement is kept by the transaction
+        StringJoiner parameters = new StringJoiner(", ", "(", ")").setEmptyValue("");
+        statement.bindings.keySet().forEach(index -> parameters.add("$" + (index + 1)));
+        Mono<String> plan = databaseClient
+            .sql("PREPARE plan_statement AS " + statement.sql)
+            .then()
+            .then(
+                bind(databaseClient.sql("EXPLAIN EXECUTE plan_statement" + parameters), statement.bindings)
+                    .map(row -> row.get(0, String.class))
+                    .all()
+                    .collect(Collectors.joining("\n"))
+            );
+        return transactionalOperator.transactional(plan.flatMap(p -> databaseClient.sql("DEALLOCATE plan_statement").then().thenReturn(p)))
+            .block();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec, Map<Integer, Object> bindings) {
+        for (Map.Entry<Integer, Object> binding : bindings.entrySet()) {
+            spec = spec.bind(binding.getKey(), binding.getValue());
+        }
+        return spec;
+    }
+
+    private static void bind(Statement statement, int index, String value) {
+        if (value != null) {
+            statement.bind(index, value);
+        } else {
+            statement.bindNull(index, String.class);
+        }
+    }
+
+    /**
+     * Records the statements created by the connection, and the values bound to them.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T recording(T target, Class<T> type, ExecutedStatement executed) {
+        return (T) Proxy.newProxyInstance(
+            getClass().getClassLoader(),
+            new Class<?>[] { type },
+            (proxy, method, args) -> {
+                Object result;
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                if ("createStatement".equals(method.getName())) {
+                    ExecutedStatement statement = new ExecutedStatement((String) args[0]);
+                    statements.add(statement);
+                    return recording((Statement) result, Statement.class, statement);
+                }
+                if ("bind".equals(method.getName()) && args[0] instanceof Integer) {
+                    executed.bindings.put((Integer) args[0], args[1]);
+                }
+                return result == target ? proxy : result;
+            }
+        );
+    }
+
+    private boolean isPostgreSQL() {
+        return connectionFactory.getMetadata().getName().contains("PostgreSQL");
+    }
+
+    private static final class ExecutedStatement {
+
+        private final String sql;
+
+        private final Map<Integer, Object> bindings = new TreeMap<>();
+
+        ExecutedStatement(String sql) {
+            this.sql = sql;
+        }
+    }
+}
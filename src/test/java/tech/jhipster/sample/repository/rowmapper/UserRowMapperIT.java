@@ -0,0 +1,153 @@
+package tech.jhipster.sample.repository.rowmapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.r2dbc.spi.ColumnMetadata;
+import io.r2dbc.spi.RowMetadata;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.r2dbc.convert.R2dbcConverter;
+import org.springframework.r2dbc.core.DatabaseClient;
+import tech.jhipster.sample.IntegrationTest;
+import tech.jhipster.sample.config.Constants;
+import tech.jhipster.sample.domain.User;
+import tech.jhipster.sample.repository.UserRepository;
+
+/**
+ * Integration tests for {@link UserRowMapper}.
+ */
+@IntegrationTest
+class UserRowMapperIT {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserRowMapper userRowMapper;
+
+    @Autowired
+    private R2dbcConverter r2dbcConverter;
+
+    @Autowired
+    private DatabaseClient db;
+
+    private User user;
+
+    @BeforeEach
+    public void init() {
+        userRepository.deleteAllUserAuthorities().block();
+        userRepository.deleteAll().block();
+        user = new User();
+        user.setLogin("row-mapper");
+        user.setPassword(RandomStringUtils.random(60));
+        user.setActivated(true);
+        user.setEmail("row-mapper@localhost");
+        user.setFirstName("row");
+        user.setLastName("mapper");
+        user.setLangKey("en");
+        user.setResetDate(Instant.now().truncatedTo(ChronoUnit.SECONDS));
+        user.setCreatedBy(Constants.SYSTEM);
+        user = userRepository.save(user).block();
+    }
+
+    @Test
+    void readsTheSameUserAsSpringData() {
+        User expected = db
+            .sql("SELECT * FROM jhi_user WHERE login = :login")
+            .bind("login", user.getLogin())
+            .map((row, metadata) -> r2dbcConverter.read(User.class, row, metadata))
+            .one()
+            .block();
+        User actual = db
+            .sql("SELECT * FROM jhi_user WHERE login = :login")
+            .bind("login", user.getLogin())
+            .map((row, metadata) -> userRowMapper.apply(row, metadata, null))
+            .one()
+            .block();
+
+        assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
+        assertThat(actual.getResetDate()).isEqualTo(user.getResetDate());
+    }
+
+    @Test
+    void readsPrefixedColumns() {
+        User actual = db
+            .sql("SELECT id AS u_id, login AS u_login, password_hash AS u_password, activated AS u_activated FROM jhi_user")
+            .map((row, metadata) -> userRowMapper.apply(row, metadata, "u"))
+            .one()
+            .block();
+
+        assertThat(actual.getId()).isEqualTo(user.getId());
+        assertThat(actual.getLogin()).isEqualTo(user.getLogin());
+        assertThat(actual.getPassword()).isEqualTo(user.getPassword());
+        assertThat(actual.isActivated()).isTrue();
+        assertThat(actual.getEmail()).isNull();
+    }
+
+    @Test
+    void keepsTheIndexesOfEachResult() {
+        CountingRowMetadata allColumns = new CountingRowMetadata(metadata("SELECT * FROM jhi_user"));
+        CountingRowMetadata someColumns = new CountingRowMetadata(metadata("SELECT id, login FROM jhi_user"));
+        for (int i = 0; i < 3; i++) {
+            User actual = db
+                .sql("SELECT * FROM jhi_user")
+                .map((row, metadata) -> userRowMapper.apply(row, allColumns, null))
+                .one()
+                .block();
+            assertThat(actual.getEmail()).isEqualTo(user.getEmail());
+            actual =
+                db
+                    .sql("SELECT id, login FROM jhi_user")
+                    .map((row, metadata) -> userRowMapper.apply(row, someColumns, null))
+                    .one()
+                    .block();
+            assertThat(actual.getLogin()).isEqualTo(user.getLogin());
+        }
+
+        // the results read one after the other don't replace each other's indexes
+        assertThat(allColumns.lookups.get()).isEqualTo(1);
+        assertThat(someColumns.lookups.get()).isEqualTo(1);
+    }
+
+    private RowMetadata metadata(String sql) {
+        return db.sql(sql).map((row, metadata) -> metadata).first().block();
+    }
+
+    private static final class CountingRowMetadata implements RowMetadata {
+
+        private final RowMetadata delegate;
+
+        private final AtomicInteger lookups = new AtomicInteger();
+
+        CountingRowMetadata(RowMetadata delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public ColumnMetadata getColumnMetadata(int index) {
+            return delegate.getColumnMetadata(index);
+        }
+
+        @Override
+        public ColumnMetadata getColumnMetadata(String name) {
+            return delegate.getColumnMetadata(name);
+        }
+
+        @Override
+        public Iterable<? extends ColumnMetadata> getColumnMetadatas() {
+            lookups.incrementAndGet();
+            return delegate.getColumnMetadatas();
+        }
+
+        @Override
+        public Collection<String> getColumnNames() {
+            return delegate.getColumnNames();
+        }
+    }
+}
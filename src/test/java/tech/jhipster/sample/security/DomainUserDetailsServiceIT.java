@@ -3,14 +3,18 @@ package tech.jhipster.sample.security;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.util.Locale;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import tech.jhipster.sample.IntegrationTest;
+import tech.jhipster.sample.config.ApplicationProperties;
 import tech.jhipster.sample.config.Constants;
 import tech.jhipster.sample.domain.User;
 import tech.jhipster.sample.repository.UserRepository;
@@ -80,6 +84,21 @@ class DomainUserDetailsServiceIT {
         assertThat(userDetails.getUsername()).isEqualTo(USER_ONE_LOGIN);
     }
 
+    @Test
+    void assertThatUserIsFoundWithAllItsAuthorities() {
+        User userOne = userRepository.findOneByLogin(USER_ONE_LOGIN).block();
+        userRepository.saveUserAuthority(userOne.getId(), AuthoritiesConstants.USER).block();
+        userRepository.saveUserAuthority(userOne.getId(), AuthoritiesConstants.ADMIN).block();
+
+        UserDetails userDetails = domainUserDetailsService.findByUsername(USER_ONE_LOGIN).block();
+        assertThat(userDetails.getAuthorities())
+            .extracting(GrantedAuthority::getAuthority)
+            .containsExactlyInAnyOrder(AuthoritiesConstants.USER, AuthoritiesConstants.ADMIN);
+
+        UserDetails userWithoutAuthority = domainUserDetailsService.findByUsername(USER_TWO_LOGIN).block();
+        assertThat(userWithoutAuthority.getAuthorities()).isEmpty();
+    }
+
     @Test
     void assertThatUserCanBeFoundByLoginIgnoreCase() {
         UserDetails userDetails = domainUserDetailsService.findByUsername(USER_ONE_LOGIN.toUpperCase(Locale.ENGLISH)).block();
@@ -113,4 +132,32 @@ class DomainUserDetailsServiceIT {
         assertThatExceptionOfType(UserNotActivatedException.class)
             .isThrownBy(() -> domainUserDetailsService.findByUsername(USER_THREE_LOGIN).block());
     }
+
+    @Test
+    void assertThatCachedUserIsEvicted() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getSecurity().getUserDetailsCache().setEnabled(true);
+        DomainUserDetailsService cachingUserDetailsService = new DomainUserDetailsService(
+            userRepository,
+            applicationProperties,
+            new SimpleMeterRegistry()
+        );
+        User userOne = userRepository.findOneByLogin(USER_ONE_LOGIN).block();
+
+        assertThat(cachingUserDetailsService.findByUsername(USER_ONE_LOGIN).block()).isNotNull();
+        assertThat(cachingUserDetailsService.findByUsername(USER_ONE_EMAIL).block()).isNotNull();
+
+        // the user is still found after its deletion, until it is evicted
+        userRepository.delete(userOne).block();
+        UserDetails userDetails = cachingUserDetailsService.findByUsername(USER_ONE_LOGIN.toUpperCase(Locale.ENGLISH)).block();
+        assertThat(userDetails).isNotNull();
+        assertThat(userDetails.getUsername()).isEqualTo(USER_ONE_LOGIN);
+
+        cachingUserDetailsService.evict(userOne);
+
+        assertThatExceptionOfType(UsernameNotFoundException.class)
+            .isThrownBy(() -> cachingUserDetailsService.findByUsername(USER_ONE_LOGIN).block());
+        assertThatExceptionOfType(UsernameNotFoundException.class)
+            .isThrownBy(() -> cachingUserDetailsService.findByUsername(USER_ONE_EMAIL).block());
+    }
 }
@@ -6,6 +6,7 @@ import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.util.*;
@@ -17,6 +18,7 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.test.util.ReflectionTestUtils;
 import tech.jhipster.config.JHipsterProperties;
+import tech.jhipster.sample.config.ApplicationProperties;
 import tech.jhipster.sample.security.AuthoritiesConstants;
 
 class TokenProviderTest {
@@ -24,6 +26,7 @@ class TokenProviderTest {
     private static final long ONE_MINUTE = 60000;
 
     private Key key;
+    private SimpleMeterRegistry meterRegistry;
     private TokenProvider tokenProvider;
 
     @BeforeEach
@@ -31,7 +34,8 @@ class TokenProviderTest {
         JHipsterProperties jHipsterProperties = new JHipsterProperties();
         String base64Secret = "fd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8";
         jHipsterProperties.getSecurity().getAuthentication().getJwt().setBase64Secret(base64Secret);
-        tokenProvider = new TokenProvider(jHipsterProperties);
+        meterRegistry = new SimpleMeterRegistry();
+        tokenProvider = new TokenProvider(jHipsterProperties, new ApplicationProperties(), meterRegistry);
         key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret));
 
         ReflectionTestUtils.setField(tokenProvider, "key", key);
@@ -83,13 +87,39 @@ class TokenProviderTest {
         assertThat(isTokenValid).isFalse();
     }
 
+    @Test
+    void testAuthenticateVerifiesValidJWTOnce() {
+        Authentication authentication = createAuthentication();
+        String token = tokenProvider.createToken(authentication, false);
+
+        Optional<Authentication> first = tokenProvider.authenticate(token);
+        Optional<Authentication> second = tokenProvider.authenticate(token);
+
+        assertThat(first).isPresent();
+        assertThat(first.get().getName()).isEqualTo("anonymous");
+        assertThat(first.get().getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly(AuthoritiesConstants.ANONYMOUS);
+        assertThat(second).containsSame(first.get());
+        assertThat(meterRegistry.get("security.jwt.verification").tag("outcome", "valid").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "jwt").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testAuthenticateDoesNotCacheInvalidJWT() {
+        String token = createTokenWithDifferentSignature();
+
+        assertThat(tokenProvider.authenticate(token)).isEmpty();
+        assertThat(tokenProvider.authenticate(token)).isEmpty();
+
+        assertThat(meterRegistry.get("security.jwt.verification").tag("outcome", "invalid").timer().count()).isEqualTo(2);
+    }
+
     @Test
     void testKeyIsSetFromSecretWhenSecretIsNotEmpty() {
         final String secret = "NwskoUmKHZtzGRKJKVjsJF7BtQMMxNWi";
         JHipsterProperties jHipsterProperties = new JHipsterProperties();
         jHipsterProperties.getSecurity().getAuthentication().getJwt().setSecret(secret);
 
-        TokenProvider tokenProvider = new TokenProvider(jHipsterProperties);
+        TokenProvider tokenProvider = new TokenProvider(jHipsterProperties, new ApplicationProperties(), new SimpleMeterRegistry());
 
         Key key = (Key) ReflectionTestUtils.getField(tokenProvider, "key");
         assertThat(key).isNotNull();
@@ -102,7 +132,7 @@ class TokenProviderTest {
         JHipsterProperties jHipsterProperties = new JHipsterProperties();
         jHipsterProperties.getSecurity().getAuthentication().getJwt().setBase64Secret(base64Secret);
 
-        TokenProvider tokenProvider = new TokenProvider(jHipsterProperties);
+        TokenProvider tokenProvider = new TokenProvider(jHipsterProperties, new ApplicationProperties(), new SimpleMeterRegistry());
 
         Key key = (Key) ReflectionTestUtils.getField(tokenProvider, "key");
         assertThat(key).isNotNull();
@@ -0,0 +1,66 @@
+package tech.jhipster.sample.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.Row;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.r2dbc.convert.MappingR2dbcConverter;
+import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
+import org.springframework.data.r2dbc.dialect.H2Dialect;
+import org.springframework.data.r2dbc.mapping.R2dbcMappingContext;
+
+/**
+ * Test class for the {@link ColumnConverter}.
+ */
+class ColumnConverterTest {
+
+    private MeterRegistry meterRegistry;
+
+    private ColumnConverter columnConverter;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        R2dbcCustomConversions conversions = R2dbcCustomConversions.of(H2Dialect.INSTANCE);
+        columnConverter = new ColumnConverter(
+            conversions,
+            new MappingR2dbcConverter(new R2dbcMappingContext(), conversions),
+            meterRegistry
+        );
+    }
+
+    @Test
+    void readsDirectlyFromTheDriver() {
+        Row row = mock(Row.class);
+        when(row.get("e_id", Long.class)).thenReturn(42L);
+
+        assertThat(columnConverter.fromRow(row, "e_id", Long.class)).isEqualTo(42L);
+        assertThat(columnConverter.fromRow(row, "e_id", Long.class)).isEqualTo(42L);
+
+        verify(row, times(0)).get(anyString());
+        assertThat(meterRegistry.find("r2dbc.column.conversion.fallbacks").counter()).isNull();
+    }
+
+    @Test
+    void convertsWithoutRetryingTheDriver() {
+        Row row = mock(Row.class);
+        when(row.get("e_id", Long.class)).thenThrow(new IllegalArgumentException("Cannot decode value of type java.lang.Long"));
+        when(row.get("e_id")).thenReturn(42);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(columnConverter.fromRow(row, "e_id", Long.class)).isEqualTo(42L);
+        }
+
+        verify(row, times(1)).get(eq("e_id"), eq(Long.class));
+        assertThat(meterRegistry.get("r2dbc.column.conversion.fallbacks").tag("type", "Long").counter().count()).isEqualTo(3);
+    }
+}
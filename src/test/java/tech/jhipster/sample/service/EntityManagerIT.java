@@ -0,0 +1,131 @@
+package tech.jhipster.sample.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.data.relational.core.query.Criteria.where;
+
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.dialect.R2dbcDialect;
+import org.springframework.data.r2dbc.query.UpdateMapper;
+import org.springframework.data.relational.core.sql.Expressions;
+import org.springframework.data.relational.core.sql.Select;
+import org.springframework.data.relational.core.sql.Table;
+import org.springframework.data.relational.core.sql.render.SqlRenderer;
+import org.springframework.r2dbc.core.DatabaseClient;
+import tech.jhipster.sample.IntegrationTest;
+import tech.jhipster.sample.config.ApplicationProperties;
+import tech.jhipster.sample.domain.Blog;
+
+/**
+ * Integration tests for {@link EntityManager}.
+ */
+@IntegrationTest
+class EntityManagerIT {
+
+    private static final Table blogTable = Table.aliased("blog", EntityManager.ENTITY_ALIAS);
+
+    private static final EntityManager.SelectTemplate selectBlog = new EntityManager.SelectTemplate(
+        Blog.class,
+        blogTable,
+        () -> Select.builder().select(Expressions.asterisk()).from(blogTable)
+    );
+
+    private static final EntityManager.LinkTable linkTable = new EntityManager.LinkTable("link_table_test", "entity_id", "ref_id");
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private SqlRenderer sqlRenderer;
+
+    @Autowired
+    private UpdateMapper updateMapper;
+
+    @Autowired
+    private R2dbcEntityTemplate r2dbcEntityTemplate;
+
+    @Autowired
+    private R2dbcDialect dialect;
+
+    @BeforeEach
+    public void initLinkTable() {
+        DatabaseClient db = r2dbcEntityTemplate.getDatabaseClient();
+        db.sql("CREATE TABLE IF NOT EXISTS link_table_test (entity_id BIGINT NOT NULL, ref_id BIGINT NOT NULL)").then().block();
+        db.sql("DELETE FROM link_table_test").then().block();
+    }
+
+    @Test
+    void criteriaValuesAreBoundAsParameters() {
+        String first = entityManager.createSelect(selectBlog, null, where("id").is(42L)).toQuery();
+        String second = entityManager.createSelect(selectBlog, null, where("id").is(43L)).toQuery();
+
+        assertThat(first).isEqualTo(second).contains("WHERE").doesNotContain("42");
+    }
+
+    @Test
+    void pagesShareTheSameStatement() {
+        Sort sort = Sort.by("name");
+        String firstPage = entityManager.createSelect(selectBlog, PageRequest.of(0, 20, sort), null).toQuery();
+        String fifthPage = entityManager.createSelect(selectBlog, PageRequest.of(4, 20, sort), null).toQuery();
+
+        assertThat(firstPage).isEqualTo(fifthPage).contains("ORDER BY").doesNotContain("20");
+    }
+
+    @Test
+    void linkTableIsWrittenInChunks() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getDatabase().setLinkTableChunkSize(2);
+        EntityManager chunkedEntityManager = new EntityManager(
+            sqlRenderer,
+            updateMapper,
+            r2dbcEntityTemplate,
+            dialect,
+            applicationProperties
+        );
+
+        Integer inserted = chunkedEntityManager.updateLinkTable(linkTable, 1L, Stream.of(10L, 11L, 12L, 12L, 13L, 14L)).block();
+
+        assertThat(inserted).isEqualTo(5);
+        assertThat(links(1L)).containsExactlyInAnyOrder(10L, 11L, 12L, 13L, 14L);
+    }
+
+    @Test
+    void linkTableIsReplaced() {
+        entityManager.updateLinkTable(linkTable, 1L, Stream.of(10L, 11L)).block();
+        entityManager.updateLinkTable(linkTable, 2L, Stream.of(10L)).block();
+
+        Integer inserted = entityManager.updateLinkTable(linkTable, 1L, Stream.of(11L, 12L)).block();
+
+        assertThat(inserted).isEqualTo(2);
+        assertThat(links(1L)).containsExactlyInAnyOrder(11L, 12L);
+        assertThat(links(2L)).containsExactly(10L);
+    }
+
+    @Test
+    void linkTableDiffOnlyWritesChanges() {
+        entityManager.updateLinkTable(linkTable, 1L, Stream.of(10L, 11L)).block();
+
+        Integer inserted = entityManager.updateLinkTable(linkTable, 1L, Stream.of(11L, 12L), true).block();
+
+        assertThat(inserted).isEqualTo(1);
+        assertThat(links(1L)).containsExactlyInAnyOrder(11L, 12L);
+        assertThat(entityManager.updateLinkTable(linkTable, 1L, Stream.of(11L, 12L), true).block()).isZero();
+    }
+
+    private List<Long> links(Long entityId) {
+        return r2dbcEntityTemplate
+            .getDatabaseClient()
+            .sql("SELECT ref_id FROM link_table_test WHERE entity_id = :entityId")
+            .bind("entityId", entityId)
+            .map(row -> row.get(0, Long.class))
+            .all()
+            .collectList()
+            .block();
+    }
+}
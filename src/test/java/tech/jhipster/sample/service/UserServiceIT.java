@@ -1,22 +1,44 @@
 package tech.jhipster.sample.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.util.context.Context;
 import tech.jhipster.sample.IntegrationTest;
+import tech.jhipster.sample.config.ApplicationProperties;
 import tech.jhipster.sample.config.Constants;
+import tech.jhipster.sample.config.r2dbc.InstrumentedConnectionFactory;
+import tech.jhipster.sample.domain.Authority;
 import tech.jhipster.sample.domain.User;
+import tech.jhipster.sample.repository.AuthorityRepository;
 import tech.jhipster.sample.repository.UserRepository;
+import tech.jhipster.sample.security.AuthoritiesConstants;
+import tech.jhipster.sample.security.DomainUserDetailsService;
+import tech.jhipster.sample.security.UserNotActivatedException;
 import tech.jhipster.sample.service.dto.AdminUserDTO;
 import tech.jhipster.security.RandomUtil;
 
@@ -44,6 +66,24 @@ class UserServiceIT {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private AuthorityRepository authorityRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private Scheduler passwordHashingScheduler;
+
+    @Autowired
+    private TransactionalOperator transactionalOperator;
+
     private User user;
 
     @BeforeEach
@@ -62,6 +102,54 @@ class UserServiceIT {
         user.setCreatedBy(Constants.SYSTEM);
     }
 
+    @Test
+    void assertThatRepositoryQueriesAreNamedInTheMetrics() {
+        userRepository.save(user).block();
+        userRepository.findOneByLogin(DEFAULT_LOGIN).block();
+
+        Timer timer = meterRegistry
+            .get(InstrumentedConnectionFactory.QUERY_METRIC_NAME)
+            .tag("query", "UserRepository.findOneByLogin")
+            .tag("outcome", "success")
+            .timer();
+        assertThat(timer.count()).isPositive();
+    }
+
+    @Test
+    void assertThatUserDetailsAreEvictedAfterTheCommit() {
+        userRepository.save(user).block();
+        ApplicationProperties cachingProperties = new ApplicationProperties();
+        cachingProperties.getSecurity().getUserDetailsCache().setEnabled(true);
+        DomainUserDetailsService cachingUserDetailsService = new DomainUserDetailsService(
+            userRepository,
+            cachingProperties,
+            new SimpleMeterRegistry()
+        );
+        UserService cachingUserService = new UserService(
+            userRepository,
+            passwordEncoder,
+            authorityRepository,
+            passwordHashingScheduler,
+            cachingUserDetailsService,
+            transactionalOperator,
+            applicationProperties,
+            new SimpleMeterRegistry()
+        );
+
+        // a login outside of the transaction, after the deactivation but before the commit, still sees the activated user
+        user.setActivated(false);
+        Mono<UserDetails> concurrentLogin = Mono
+            .defer(() -> cachingUserDetailsService.findByUsername(DEFAULT_LOGIN))
+            .contextWrite(context -> Context.empty());
+        UserDetails loggedInBeforeCommit = transactionalOperator
+            .transactional(cachingUserService.saveUser(user).then(concurrentLogin))
+            .block();
+        assertThat(loggedInBeforeCommit).isNotNull();
+
+        assertThatExceptionOfType(UserNotActivatedException.class)
+            .isThrownBy(() -> cachingUserDetailsService.findByUsername(DEFAULT_LOGIN).block());
+    }
+
     @Test
     void assertThatUserMustExistToResetPassword() {
         userRepository.save(user).block();
@@ -75,6 +163,31 @@ class UserServiceIT {
         assertThat(maybeUser.orElse(null).getResetKey()).isNotNull();
     }
 
+    @Test
+    void assertThatUpdateUserOnlyReplacesChangedAuthorities() {
+        userRepository.save(user).block();
+        userRepository.saveUserAuthority(user.getId(), AuthoritiesConstants.USER).block();
+
+        AdminUserDTO userDTO = new AdminUserDTO(user);
+        userDTO.setAuthorities(Collections.singleton(AuthoritiesConstants.ADMIN));
+        userService.updateUser(userDTO).block();
+
+        assertThat(userRepository.findOneWithAuthoritiesByLogin(DEFAULT_LOGIN).block().getAuthorities())
+            .extracting(Authority::getName)
+            .containsExactly(AuthoritiesConstants.ADMIN);
+
+        userDTO.setAuthorities(new HashSet<>(Arrays.asList(AuthoritiesConstants.USER, AuthoritiesConstants.ADMIN)));
+        userService.updateUser(userDTO).block();
+
+        // users loaded without their authorities keep them when saved
+        userService.updateUser("updated", DEFAULT_LASTNAME, DEFAULT_EMAIL, DEFAULT_LANGKEY, DEFAULT_IMAGEURL).block();
+        userService.requestPasswordReset(DEFAULT_EMAIL).block();
+
+        assertThat(userRepository.findOneWithAuthoritiesByLogin(DEFAULT_LOGIN).block().getAuthorities())
+            .extracting(Authority::getName)
+            .containsExactlyInAnyOrder(AuthoritiesConstants.USER, AuthoritiesConstants.ADMIN);
+    }
+
     @Test
     void assertThatOnlyActivatedUserCanRequestPasswordReset() {
         user.setActivated(false);
@@ -145,11 +258,87 @@ class UserServiceIT {
             .collectList()
             .block();
         assertThat(users).isNotEmpty();
-        userService.removeNotActivatedUsers();
+        userService.removeNotActivatedUsersReactively().block();
         users = userRepository.findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(threeDaysAgo).collectList().block();
         assertThat(users).isEmpty();
     }
 
+    @Test
+    void assertThatNotActivatedUsersAreDeletedByChunksWithTheirAuthorities() {
+        Instant fourDaysAgo = Instant.now().minus(4, ChronoUnit.DAYS);
+        for (int i = 0; i < 5; i++) {
+            User notActivatedUser = new User();
+            notActivatedUser.setLogin("not-activated-" + i);
+            notActivatedUser.setPassword(RandomStringUtils.random(60));
+            notActivatedUser.setActivated(false);
+            notActivatedUser.setActivationKey(RandomStringUtils.random(20));
+            notActivatedUser.setCreatedBy(Constants.SYSTEM);
+            notActivatedUser.setCreatedDate(fourDaysAgo);
+            notActivatedUser = userRepository.save(notActivatedUser).block();
+            userRepository.saveUserAuthority(notActivatedUser.getId(), AuthoritiesConstants.USER).block();
+        }
+        user.setCreatedDate(fourDaysAgo);
+        userRepository.save(user).block();
+        userRepository.saveUserAuthority(user.getId(), AuthoritiesConstants.USER).block();
+
+        ApplicationProperties.UserCleanup userCleanup = applicationProperties.getUserCleanup();
+        int chunkSize = userCleanup.getChunkSize();
+        userCleanup.setChunkSize(2);
+        double chunks = meterRegistry.get("users.cleanup.chunks").timer().count();
+        try {
+            assertThat(userService.removeNotActivatedUsersReactively().block()).isEqualTo(5);
+        } finally {
+            userCleanup.setChunkSize(chunkSize);
+        }
+
+        assertThat(meterRegistry.get("users.cleanup.chunks").timer().count() - chunks).isEqualTo(3);
+        assertThat(userRepository.findAll().collectList().block()).extracting(User::getLogin).containsExactly(DEFAULT_LOGIN);
+        assertThat(userRepository.findOneWithAuthoritiesByLogin(DEFAULT_LOGIN).block().getAuthorities()).hasSize(1);
+    }
+
+    @Test
+    void assertThatTheScheduledDeletionIsSkippedWhileThePreviousOneRuns() throws InterruptedException {
+        Instant fourDaysAgo = Instant.now().minus(4, ChronoUnit.DAYS);
+        for (int i = 0; i < 3; i++) {
+            User notActivatedUser = new User();
+            notActivatedUser.setLogin("not-activated-" + i);
+            notActivatedUser.setPassword(RandomStringUtils.random(60));
+            notActivatedUser.setActivated(false);
+            notActivatedUser.setActivationKey(RandomStringUtils.random(20));
+            notActivatedUser.setCreatedBy(Constants.SYSTEM);
+            notActivatedUser.setCreatedDate(fourDaysAgo);
+            userRepository.save(notActivatedUser).block();
+        }
+
+        ApplicationProperties.UserCleanup userCleanup = applicationProperties.getUserCleanup();
+        int chunkSize = userCleanup.getChunkSize();
+        Duration pause = userCleanup.getPause();
+        userCleanup.setChunkSize(1);
+        userCleanup.setPause(Duration.ofMinutes(1));
+        try {
+            // the first run deletes a user, then waits before the next chunk
+            userService.removeNotActivatedUsers();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (userRepository.count().block() > 2 && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+            assertThat(userRepository.count().block()).isEqualTo(2);
+
+            // without the guard, this run would delete another user right away
+            userService.removeNotActivatedUsers();
+            Thread.sleep(500);
+            assertThat(userRepository.count().block()).isEqualTo(2);
+        } finally {
+            userService.stopRemovingNotActivatedUsers();
+            userCleanup.setChunkSize(chunkSize);
+            userCleanup.setPause(pause);
+        }
+
+        // once stopped, a new run can start
+        userService.removeNotActivatedUsersReactively().block();
+        assertThat(userRepository.count().block()).isZero();
+    }
+
     @Test
     void assertThatNotActivatedUsersWithNullActivationKeyCreatedBefore3DaysAreNotDeleted() {
         Instant now = Instant.now();
@@ -163,7 +352,7 @@ class UserServiceIT {
             .collectList()
             .block();
         assertThat(users).isEmpty();
-        userService.removeNotActivatedUsers();
+        userService.removeNotActivatedUsersReactively().block();
         Optional<User> maybeDbUser = userRepository.findById(dbUser.getId()).blockOptional();
         assertThat(maybeDbUser).contains(dbUser);
     }
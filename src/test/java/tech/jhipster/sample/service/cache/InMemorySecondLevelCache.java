@@ -0,0 +1,38 @@
+package tech.jhipster.sample.service.cache;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import reactor.core.publisher.Mono;
+
+/**
+ * An in-process {@link SecondLevelCache}, standing in for a shared cache in the tests.
+ */
+public class InMemorySecondLevelCache implements SecondLevelCache {
+
+    private final Map<String, Map<String, Object>> caches = new ConcurrentHashMap<>();
+
+    @Override
+    public Mono<Object> get(String cacheName, String key) {
+        return Mono.justOrEmpty(cache(cacheName).get(key));
+    }
+
+    @Override
+    public Mono<Void> put(String cacheName, String key, Object value, Duration timeToLive) {
+        return Mono.fromRunnable(() -> cache(cacheName).put(key, value));
+    }
+
+    @Override
+    public Mono<Void> evict(String cacheName, String key) {
+        return Mono.fromRunnable(() -> cache(cacheName).remove(key));
+    }
+
+    @Override
+    public Mono<Void> clear(String cacheName) {
+        return Mono.fromRunnable(() -> cache(cacheName).clear());
+    }
+
+    public Map<String, Object> cache(String cacheName) {
+        return caches.computeIfAbsent(cacheName, name -> new ConcurrentHashMap<>());
+    }
+}
@@ -0,0 +1,126 @@
+package tech.jhipster.sample.service.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+/**
+ * Test class for the {@link TwoLevelCache}.
+ */
+class TwoLevelCacheTest {
+
+    private MeterRegistry meterRegistry;
+
+    private InMemorySecondLevelCache secondLevelCache;
+
+    private TwoLevelCache<String> cache;
+
+    private AtomicInteger loads;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        secondLevelCache = new InMemorySecondLevelCache();
+        cache = new TwoLevelCache<>("test", 10, Duration.ofMinutes(1), secondLevelCache, meterRegistry);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void testValueIsLoadedOnce() {
+        assertThat(cache.get("key", this::load).block()).isEqualTo("value");
+        assertThat(cache.get("key", this::load).block()).isEqualTo("value");
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(secondLevelCache.cache("test")).containsEntry("key", "value");
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "test").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testValueIsReadFromSecondLevel() {
+        secondLevelCache.cache("test").put("key", "shared");
+
+        assertThat(cache.get("key", this::load).block()).isEqualTo("shared");
+        secondLevelCache.cache("test").clear();
+        assertThat(cache.get("key", this::load).block()).isEqualTo("shared");
+
+        assertThat(loads.get()).isZero();
+    }
+
+    @Test
+    void testEvictRemovesFromBothLevels() {
+        cache.get("key", this::load).block();
+
+        cache.evict("key").block();
+
+        assertThat(secondLevelCache.cache("test")).isEmpty();
+        assertThat(cache.get("key", this::load).block()).isEqualTo("value");
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testEvictAndClearAreDoneOnSubscription() {
+        cache.get("key", this::load).block();
+
+        Mono<Void> eviction = cache.evict("key");
+        Mono<Void> clear = cache.clear();
+        assertThat(cache.getIfPresent("key")).isEqualTo("value");
+        assertThat(secondLevelCache.cache("test")).containsKey("key");
+
+        eviction.then(clear).block();
+        assertThat(cache.getIfPresent("key")).isNull();
+        assertThat(secondLevelCache.cache("test")).isEmpty();
+    }
+
+    @Test
+    void testValueLoadedDuringAnEvictionIsNotCached() {
+        // the write which made the loaded value stale is committed, and evicts the key, while the value is loaded
+        Mono<String> staleLoad = Mono.fromSupplier(
+            () -> {
+                cache.evict("key").block();
+                return "stale";
+            }
+        );
+
+        assertThat(cache.get("key", () -> staleLoad).block()).isEqualTo("stale");
+
+        assertThat(cache.getIfPresent("key")).isNull();
+        assertThat(secondLevelCache.cache("test")).isEmpty();
+        assertThat(cache.get("key", this::load).block()).isEqualTo("value");
+        assertThat(cache.getIfPresent("key")).isEqualTo("value");
+    }
+
+    @Test
+    void testSecondLevelFailureIsAMiss() {
+        SecondLevelCache failing = new InMemorySecondLevelCache() {
+            @Override
+            public Mono<Object> get(String cacheName, String key) {
+                return Mono.error(new IllegalStateException("unavailable"));
+            }
+        };
+        TwoLevelCache<String> cacheWithFailure = new TwoLevelCache<>("failing", 10, Duration.ofMinutes(1), failing, meterRegistry);
+
+        assertThat(cacheWithFailure.get("key", this::load).block()).isEqualTo("value");
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void testEmptyValueIsNotCached() {
+        assertThat(cache.get("key", Mono::empty).block()).isNull();
+        assertThat(cache.get("key", this::load).block()).isEqualTo("value");
+    }
+
+    private Mono<String> load() {
+        return Mono.fromSupplier(
+            () -> {
+                loads.incrementAndGet();
+                return "value";
+            }
+        );
+    }
+}
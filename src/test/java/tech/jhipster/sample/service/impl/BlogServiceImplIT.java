@@ -0,0 +1,183 @@
+package tech.jhipster.sample.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.ConnectionFactory;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import tech.jhipster.sample.IntegrationTest;
+import tech.jhipster.sample.config.ApplicationProperties;
+import tech.jhipster.sample.domain.Blog;
+import tech.jhipster.sample.repository.BlogRepository;
+import tech.jhipster.sample.service.EntityManager;
+import tech.jhipster.sample.service.cache.InMemorySecondLevelCache;
+import tech.jhipster.sample.service.cache.SecondLevelCache;
+import tech.jhipster.sample.service.dto.BlogDTO;
+import tech.jhipster.sample.service.mapper.BlogMapper;
+
+/**
+ * Integration tests for the caches of {@link BlogServiceImpl}.
+ */
+@IntegrationTest
+class BlogServiceImplIT {
+
+    @Autowired
+    private BlogRepository blogRepository;
+
+    @Autowired
+    private BlogMapper blogMapper;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private TransactionalOperator transactionalOperator;
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    private InMemorySecondLevelCache secondLevelCache;
+
+    private ReadOnlyRecordingTransactionManager transactionManager;
+
+    private BlogServiceImpl blogService;
+
+    @BeforeEach
+    public void init() {
+        em.deleteAll(Blog.class).block();
+        secondLevelCache = new InMemorySecondLevelCache();
+        transactionManager = new ReadOnlyRecordingTransactionManager(connectionFactory);
+        blogService = createBlogService(true);
+    }
+
+    private BlogServiceImpl createBlogService(boolean cacheEnabled) {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getBlog().getCache().setEnabled(cacheEnabled);
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("secondLevelCache", secondLevelCache);
+        ObjectProvider<SecondLevelCache> secondLevelCacheProvider = beanFactory.getBeanProvider(SecondLevelCache.class);
+        return new BlogServiceImpl(
+            blogRepository,
+            blogMapper,
+            em,
+            applicationProperties,
+            transactionManager,
+            new SimpleMeterRegistry(),
+            secondLevelCacheProvider
+        );
+    }
+
+    @AfterEach
+    public void cleanup() {
+        em.deleteAll(Blog.class).block();
+    }
+
+    @Test
+    void findOneIsCachedUntilTheBlogIsSaved() {
+        Blog blog = blogRepository.save(new Blog().name("AAAAAAAAAA")).block();
+
+        assertThat(blogService.findOne(blog.getId()).block().getName()).isEqualTo("AAAAAAAAAA");
+        // written behind the back of the service, so the cached value is still returned
+        blogRepository.save(blog.name("BBBBBBBBBB")).block();
+        assertThat(blogService.findOne(blog.getId()).block().getName()).isEqualTo("AAAAAAAAAA");
+        assertThat(secondLevelCache.cache("blogs")).containsKey(String.valueOf(blog.getId()));
+
+        BlogDTO blogDTO = blogMapper.toDto(blog);
+        blogDTO.setName("CCCCCCCCCC");
+        transactionalOperator.transactional(blogService.save(blogDTO)).block();
+
+        assertThat(secondLevelCache.cache("blogs")).isEmpty();
+        assertThat(blogService.findOne(blog.getId()).block().getName()).isEqualTo("CCCCCCCCCC");
+    }
+
+    @Test
+    void firstPageIsCachedUntilABlogIsDeleted() {
+        Blog blog = blogRepository.save(new Blog().name("AAAAAAAAAA")).block();
+        blogRepository.save(new Blog().name("BBBBBBBBBB")).block();
+
+        assertThat(blogService.findAll(PageRequest.of(0, 10)).collectList().block()).hasSize(2);
+        blogRepository.save(new Blog().name("CCCCCCCCCC")).block();
+        assertThat(blogService.findAll(PageRequest.of(0, 10)).collectList().block()).hasSize(2);
+        // the other pages aren't cached
+        assertThat(blogService.findAll(PageRequest.of(1, 2)).collectList().block()).hasSize(1);
+
+        transactionalOperator.transactional(blogService.delete(blog.getId())).block();
+
+        assertThat(blogService.findAll(PageRequest.of(0, 10)).collectList().block()).hasSize(2);
+        assertThat(blogService.findOne(blog.getId()).block()).isNull();
+    }
+
+    @Test
+    void firstPageReadBeforeTheCommitIsNotCachedAfterIt() {
+        Blog blog = blogRepository.save(new Blog().name("AAAAAAAAAA")).block();
+        blogRepository.save(new Blog().name("BBBBBBBBBB")).block();
+        assertThat(blogService.findAll(PageRequest.of(0, 10)).collectList().block()).hasSize(2);
+
+        // the first page is read outside of the transaction, after the delete but before the commit
+        Mono<List<BlogDTO>> concurrentRead = Mono
+            .defer(() -> blogService.findAll(PageRequest.of(0, 10)).collectList())
+            .contextWrite(context -> Context.empty());
+        List<BlogDTO> readBeforeCommit = transactionalOperator
+            .transactional(blogService.delete(blog.getId()).then(concurrentRead))
+            .block();
+        assertThat(readBeforeCommit).hasSize(2);
+
+        assertThat(blogService.findAll(PageRequest.of(0, 10)).collectList().block()).hasSize(1);
+    }
+
+    @Test
+    void cachedValuesAreLoadedFromThePrimary() {
+        Blog blog = blogRepository.save(new Blog().name("AAAAAAAAAA")).block();
+
+        // with the caches, the loaders don't begin read-only transactions, which would be routed to the replicas
+        blogService.findOne(blog.getId()).block();
+        blogService.findAll(PageRequest.of(0, 10)).collectList().block();
+        assertThat(transactionManager.readOnly).containsExactly(false, false);
+
+        // the pages which are not cached are still read from the replicas
+        blogService.findAll(PageRequest.of(1, 10)).collectList().block();
+        assertThat(transactionManager.readOnly).containsExactly(false, false, true);
+
+        transactionManager.readOnly.clear();
+        BlogServiceImpl uncachedBlogService = createBlogService(false);
+        uncachedBlogService.findOne(blog.getId()).block();
+        uncachedBlogService.findVersionWithUser(blog.getId()).block();
+        assertThat(transactionManager.readOnly).containsExactly(true, true);
+    }
+
+    /**
+     * Records whether the transactions it begins are read-only.
+     */
+    private static class ReadOnlyRecordingTransactionManager extends R2dbcTransactionManager {
+
+        private final List<Boolean> readOnly = new ArrayList<>();
+
+        ReadOnlyRecordingTransactionManager(ConnectionFactory connectionFactory) {
+            super(connectionFactory);
+        }
+
+        @Override
+        protected Mono<Void> doBegin(
+            TransactionSynchronizationManager synchronizationManager,
+            Object transaction,
+            TransactionDefinition definition
+        ) {
+            readOnly.add(definition.isReadOnly());
+            return super.doBegin(synchronizationManager, transaction, definition);
+        }
+    }
+}
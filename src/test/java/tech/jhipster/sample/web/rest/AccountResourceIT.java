@@ -9,6 +9,7 @@ import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -120,6 +121,44 @@ class AccountResourceIT {
             .isEqualTo(AuthoritiesConstants.ADMIN);
     }
 
+    @Test
+    @WithMockUser("account-not-modified")
+    void testGetAccountNotModified() {
+        AdminUserDTO user = new AdminUserDTO();
+        user.setLogin("account-not-modified");
+        user.setEmail("account-not-modified@example.com");
+        user.setAuthorities(Collections.singleton(AuthoritiesConstants.USER));
+        userService.createUser(user).block();
+
+        String eTag = accountWebTestClient
+            .get()
+            .uri("/api/account")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .exists(HttpHeaders.LAST_MODIFIED)
+            .expectBody()
+            .returnResult()
+            .getResponseHeaders()
+            .getETag();
+        assertThat(eTag).isNotNull();
+
+        accountWebTestClient
+            .get()
+            .uri("/api/account")
+            .accept(MediaType.APPLICATION_JSON)
+            .ifNoneMatch(eTag)
+            .exchange()
+            .expectStatus()
+            .isNotModified()
+            .expectBody()
+            .isEmpty();
+
+        userService.deleteUser("account-not-modified").block();
+    }
+
     @Test
     void testGetUnknownAccount() {
         accountWebTestClient
@@ -1,9 +1,11 @@
 package tech.jhipster.sample.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
 
+import java.net.URI;
 import java.time.Duration;
 import java.util.List;
 import org.junit.jupiter.api.AfterEach;
@@ -14,14 +16,25 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import tech.jhipster.sample.IntegrationTest;
+import tech.jhipster.sample.config.ApplicationProperties;
+import tech.jhipster.sample.config.FetchStrategy;
 import tech.jhipster.sample.domain.Blog;
+import tech.jhipster.sample.domain.User;
+import tech.jhipster.sample.repository.BlogProjection;
 import tech.jhipster.sample.repository.BlogRepository;
+import tech.jhipster.sample.repository.UserRepository;
 import tech.jhipster.sample.service.EntityManager;
 import tech.jhipster.sample.service.dto.BlogDTO;
+import tech.jhipster.sample.service.dto.BulkResultDTO;
 import tech.jhipster.sample.service.mapper.BlogMapper;
 
 /**
@@ -41,12 +54,18 @@ class BlogResourceIT {
     @Autowired
     private BlogMapper blogMapper;
 
+    @Autowired
+    private UserRepository userRepository;
+
     @Autowired
     private EntityManager em;
 
     @Autowired
     private WebTestClient webTestClient;
 
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
     private Blog blog;
 
     /**
@@ -111,6 +130,66 @@ class BlogResourceIT {
         assertThat(testBlog.getName()).isEqualTo(DEFAULT_NAME);
     }
 
+    @Test
+    void bulkSaveBlogs() throws Exception {
+        // Initialize the database
+        blogRepository.save(blog).block();
+        int databaseSizeBeforeCreate = blogRepository.findAll().collectList().block().size();
+
+        BlogDTO updatedBlogDTO = blogMapper.toDto(blog);
+        updatedBlogDTO.setName(UPDATED_NAME);
+        BlogDTO missingBlogDTO = blogMapper.toDto(createUpdatedEntity(em));
+        missingBlogDTO.setId(Long.MAX_VALUE);
+        StringBuilder body = new StringBuilder();
+        body.append(new String(TestUtil.convertObjectToJsonBytes(blogMapper.toDto(createEntity(em))))).append('\n');
+        body.append(new String(TestUtil.convertObjectToJsonBytes(updatedBlogDTO))).append('\n');
+        body.append(new String(TestUtil.convertObjectToJsonBytes(missingBlogDTO))).append('\n');
+        body.append(new String(TestUtil.convertObjectToJsonBytes(blogMapper.toDto(createEntity(em))))).append('\n');
+        body.append(new String(TestUtil.convertObjectToJsonBytes(blogMapper.toDto(createEntity(em))))).append('\n');
+
+        int bulkChunkSize = applicationProperties.getBlog().getBulkChunkSize();
+        applicationProperties.getBlog().setBulkChunkSize(2);
+        List<BulkResultDTO<BlogDTO>> results;
+        try {
+            results =
+                webTestClient
+                    .post()
+                    .uri("/api/blogs/_bulk")
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .accept(MediaType.APPLICATION_NDJSON)
+                    .bodyValue(body.toString())
+                    .exchange()
+                    .expectStatus()
+                    .isOk()
+                    .returnResult(new ParameterizedTypeReference<BulkResultDTO<BlogDTO>>() {})
+                    .getResponseBody()
+                    .collectList()
+                    .block(Duration.ofSeconds(5));
+        } finally {
+            applicationProperties.getBlog().setBulkChunkSize(bulkChunkSize);
+        }
+
+        // Validate the results are in the order of the request
+        assertThat(results)
+            .extracting(BulkResultDTO::getStatus)
+            .containsExactly(
+                BulkResultDTO.Status.CREATED,
+                BulkResultDTO.Status.UPDATED,
+                BulkResultDTO.Status.NOT_FOUND,
+                BulkResultDTO.Status.CREATED,
+                BulkResultDTO.Status.CREATED
+            );
+        assertThat(results.get(1).getId()).isEqualTo(blog.getId());
+        assertThat(results.get(2).getId()).isEqualTo(Long.MAX_VALUE);
+        assertThat(results.get(2).getEntity()).isNull();
+
+        // Validate the Blogs in the database
+        List<Blog> blogList = blogRepository.findAll().collectList().block();
+        assertThat(blogList).hasSize(databaseSizeBeforeCreate + 3);
+        assertThat(blogRepository.findById(blog.getId()).block().getName()).isEqualTo(UPDATED_NAME);
+        assertThat(blogRepository.findById(results.get(4).getId()).block().getName()).isEqualTo(DEFAULT_NAME);
+    }
+
     @Test
     void createBlogWithExistingId() throws Exception {
         // Create the Blog with an existing ID
@@ -156,6 +235,237 @@ class BlogResourceIT {
             .value(hasItem(DEFAULT_NAME));
     }
 
+    @Test
+    void getAllBlogsWithoutCount() {
+        // Initialize the database
+        blogRepository.save(blog).block();
+
+        webTestClient
+            .get()
+            .uri("/api/blogs?sort=id,desc&count=none")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .doesNotExist("X-Total-Count")
+            .expectHeader()
+            .value(HttpHeaders.LINK, containsString("rel=\"first\""))
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .value(hasItem(blog.getId().intValue()));
+    }
+
+    @Test
+    void getAllBlogsWithCachedCount() throws Exception {
+        // Initialize the database, deleting a blog through the service drops the cached count
+        Blog deleted = blogRepository.save(createEntity(em)).block();
+        webTestClient.delete().uri("/api/blogs/{id}", deleted.getId()).exchange().expectStatus().isNoContent();
+        blogRepository.save(blog).block();
+        expectTotalCount("cached", 1);
+
+        // Changes made behind the service are not seen until the count expires
+        blogRepository.save(createEntity(em)).block();
+        expectTotalCount("cached", 1);
+        expectTotalCount("exact", 2);
+
+        // Blogs created through the service are added to the cached count
+        webTestClient
+            .post()
+            .uri("/api/blogs")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(blogMapper.toDto(createEntity(em))))
+            .exchange()
+            .expectStatus()
+            .isCreated();
+        expectTotalCount("cached", 2);
+        // without statistics, the estimate falls back to an exact count
+        expectTotalCount("estimate", 3);
+    }
+
+    private void expectTotalCount(String countMode, long total) {
+        // pages of a single blog, as the total is otherwise corrected from the size of a partial page
+        webTestClient
+            .get()
+            .uri("/api/blogs?size=1&count={countMode}", countMode)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals("X-Total-Count", String.valueOf(total));
+    }
+
+    @Test
+    void streamAllBlogs() {
+        // Initialize the database
+        blogRepository.save(blog).block();
+        Blog other = blogRepository.save(createEntity(em)).block();
+
+        List<BlogDTO> blogs = webTestClient
+            .get()
+            .uri("/api/blogs?sort=id,desc")
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .returnResult(BlogDTO.class)
+            .getResponseBody()
+            .collectList()
+            .block(Duration.ofSeconds(5));
+
+        assertThat(blogs).extracting(BlogDTO::getId).containsExactly(other.getId(), blog.getId());
+        assertThat(blogs).extracting(BlogDTO::getName).containsOnly(DEFAULT_NAME);
+
+        List<BlogDTO> page = webTestClient
+            .get()
+            .uri("/api/blogs?size=1")
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM)
+            .returnResult(BlogDTO.class)
+            .getResponseBody()
+            .collectList()
+            .block(Duration.ofSeconds(5));
+
+        assertThat(page).hasSize(1);
+    }
+
+    @Test
+    void getAllBlogsWithBatchedUsers() {
+        // Initialize the database
+        User owner = userRepository.save(UserResourceIT.createEntity(em)).block();
+        User otherOwner = userRepository.save(UserResourceIT.createEntity(em)).block();
+        blogRepository.save(createEntity(em).user(owner)).block();
+        blogRepository.save(createEntity(em).user(otherOwner)).block();
+        blogRepository.save(createEntity(em).user(owner)).block();
+        Blog blogWithoutUser = blogRepository.save(createEntity(em)).block();
+
+        applicationProperties.getBlog().setUserFetch(FetchStrategy.BATCH);
+        try {
+            List<BlogDTO> blogs = webTestClient
+                .get()
+                .uri("/api/blogs?sort=id,asc&size=3")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(BlogDTO.class)
+                .returnResult()
+                .getResponseBody();
+
+            assertThat(blogs)
+                .extracting(blogDTO -> blogDTO.getUser().getLogin())
+                .containsExactly(owner.getLogin(), otherOwner.getLogin(), owner.getLogin());
+
+            webTestClient
+                .get()
+                .uri("/api/blogs/{id}", blogWithoutUser.getId())
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody()
+                .jsonPath("$.id")
+                .isEqualTo(blogWithoutUser.getId().intValue())
+                .jsonPath("$.user.login")
+                .doesNotExist();
+        } finally {
+            applicationProperties.getBlog().setUserFetch(FetchStrategy.JOIN);
+            deleteEntities(em);
+            userRepository.delete(owner).block();
+            userRepository.delete(otherOwner).block();
+        }
+    }
+
+    @Test
+    void getBlogWithProjection() {
+        // Initialize the database
+        User owner = userRepository.save(UserResourceIT.createEntity(em)).block();
+        blogRepository.save(blog.user(owner)).block();
+
+        try {
+            for (FetchStrategy userFetch : FetchStrategy.values()) {
+                applicationProperties.getBlog().setUserFetch(userFetch);
+
+                Blog projected = blogRepository.findById(blog.getId(), BlogProjection.USER_LOGIN).block();
+                assertThat(projected.getUser().getLogin()).isEqualTo(owner.getLogin());
+                assertThat(projected.getUser().getPassword()).isNull();
+                assertThat(projected.getUser().getEmail()).isNull();
+
+                Blog full = blogRepository.findById(blog.getId(), BlogProjection.FULL).block();
+                assertThat(full.getUser().getPassword()).isEqualTo(owner.getPassword());
+                assertThat(full.getUser().getEmail()).isEqualTo(owner.getEmail());
+            }
+
+            webTestClient
+                .get()
+                .uri("/api/blogs/{id}", blog.getId())
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody()
+                .jsonPath("$.user.login")
+                .isEqualTo(owner.getLogin());
+        } finally {
+            applicationProperties.getBlog().setUserFetch(FetchStrategy.JOIN);
+            deleteEntities(em);
+            userRepository.delete(owner).block();
+        }
+    }
+
+    @Test
+    void getAllBlogsByKeyset() {
+        // Initialize the database
+        Blog first = blogRepository.save(createEntity(em)).block();
+        Blog second = blogRepository.save(createEntity(em)).block();
+        Blog third = blogRepository.save(createEntity(em)).block();
+
+        // Get the first page, and follow the link to the next one
+        EntityExchangeResult<List<BlogDTO>> firstPage = webTestClient
+            .get()
+            .uri("/api/blogs?after=&size=2&sort=id,desc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBodyList(BlogDTO.class)
+            .returnResult();
+        assertThat(firstPage.getResponseBody()).extracting(BlogDTO::getId).containsExactly(third.getId(), second.getId());
+        String next = firstPage.getResponseHeaders().getFirst(HttpHeaders.LINK);
+        assertThat(next).endsWith("; rel=\"next\"");
+
+        webTestClient
+            .get()
+            .uri(URI.create(next.substring(1, next.indexOf('>'))))
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .doesNotExist(HttpHeaders.LINK)
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .isEqualTo(first.getId().intValue());
+    }
+
+    @Test
+    void getAllBlogsByKeysetWithInvalidToken() {
+        webTestClient
+            .get()
+            .uri("/api/blogs?after=not-a-token&sort=id,desc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+    }
+
     @Test
     void getBlog() {
         // Initialize the database
@@ -178,6 +488,152 @@ class BlogResourceIT {
             .value(is(DEFAULT_NAME));
     }
 
+    @Test
+    void getBlogNotModified() {
+        // Initialize the database
+        blogRepository.save(blog).block();
+
+        String eTag = webTestClient
+            .get()
+            .uri("/api/blogs/{id}", blog.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.version")
+            .isEqualTo(0)
+            .returnResult()
+            .getResponseHeaders()
+            .getETag();
+        assertThat(eTag).isEqualTo("\"0\"");
+
+        // The client has the current version
+        webTestClient
+            .get()
+            .uri("/api/blogs/{id}", blog.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .ifNoneMatch(eTag)
+            .exchange()
+            .expectStatus()
+            .isNotModified()
+            .expectHeader()
+            .valueEquals(HttpHeaders.ETAG, eTag)
+            .expectBody()
+            .isEmpty();
+
+        // Every update increments the version
+        blogRepository.save(blog.name(UPDATED_NAME)).block();
+
+        webTestClient
+            .get()
+            .uri("/api/blogs/{id}", blog.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .ifNoneMatch(eTag)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals(HttpHeaders.ETAG, "\"1\"")
+            .expectBody()
+            .jsonPath("$.name")
+            .isEqualTo(UPDATED_NAME)
+            .jsonPath("$.version")
+            .isEqualTo(1);
+    }
+
+    @Test
+    void getBlogModifiedWithTheLoginOfItsUser() {
+        // Initialize the database
+        User owner = userRepository.save(UserResourceIT.createEntity(em)).block();
+        blogRepository.save(blog.user(owner)).block();
+
+        String eTag = webTestClient
+            .get()
+            .uri("/api/blogs/{id}", blog.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .returnResult()
+            .getResponseHeaders()
+            .getETag();
+        assertThat(eTag).isEqualTo("\"0-" + owner.getId() + "-" + owner.getLogin() + "\"");
+
+        webTestClient
+            .get()
+            .uri("/api/blogs/{id}", blog.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .ifNoneMatch(eTag)
+            .exchange()
+            .expectStatus()
+            .isNotModified();
+
+        // The version of the blog is unchanged, but its body has the new login
+        owner.setLogin("renamed" + owner.getLogin());
+        userRepository.save(owner).block();
+
+        webTestClient
+            .get()
+            .uri("/api/blogs/{id}", blog.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .ifNoneMatch(eTag)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.version")
+            .isEqualTo(0)
+            .jsonPath("$.user.login")
+            .isEqualTo(owner.getLogin());
+    }
+
+    @Test
+    void getAllBlogsNotModified() {
+        // Initialize the database
+        blogRepository.save(blog).block();
+
+        String eTag = webTestClient
+            .get()
+            .uri("/api/blogs?sort=id,desc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .returnResult()
+            .getResponseHeaders()
+            .getETag();
+        assertThat(eTag).isNotNull();
+
+        webTestClient
+            .get()
+            .uri("/api/blogs?sort=id,desc")
+            .accept(MediaType.APPLICATION_JSON)
+            .ifNoneMatch(eTag)
+            .exchange()
+            .expectStatus()
+            .isNotModified()
+            .expectBody()
+            .isEmpty();
+
+        // The tag of the page changes with the versions of its blogs
+        blogRepository.save(blog.name(UPDATED_NAME)).block();
+
+        webTestClient
+            .get()
+            .uri("/api/blogs?sort=id,desc")
+            .accept(MediaType.APPLICATION_JSON)
+            .ifNoneMatch(eTag)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[0].name")
+            .isEqualTo(UPDATED_NAME);
+    }
+
     @Test
     void getNonExistingBlog() {
         // Get the blog
@@ -218,6 +674,46 @@ class BlogResourceIT {
         assertThat(testBlog.getName()).isEqualTo(UPDATED_NAME);
     }
 
+    @Test
+    void updateBlogWithStaleVersion() throws Exception {
+        // Initialize the database
+        blogRepository.save(blog).block();
+
+        // Read the blog, then let another client update it
+        BlogDTO blogDTO = blogMapper.toDto(blogRepository.findById(blog.getId()).block());
+        assertThat(blogDTO.getVersion()).isZero();
+        blogRepository.save(blogRepository.findById(blog.getId()).block().name(UPDATED_NAME)).block();
+
+        blogDTO.setName("stale");
+        webTestClient
+            .put()
+            .uri("/api/blogs")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(blogDTO))
+            .exchange()
+            .expectStatus()
+            .isEqualTo(HttpStatus.CONFLICT);
+
+        // The other update is kept
+        Blog testBlog = blogRepository.findById(blog.getId()).block();
+        assertThat(testBlog.getName()).isEqualTo(UPDATED_NAME);
+        assertThat(testBlog.getVersion()).isEqualTo(1L);
+
+        // With the current version, the update succeeds and increments it
+        blogDTO.setVersion(1L);
+        webTestClient
+            .put()
+            .uri("/api/blogs")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(blogDTO))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.version")
+            .isEqualTo(2);
+    }
+
     @Test
     void updateNonExistingBlog() throws Exception {
         int databaseSizeBeforeUpdate = blogRepository.findAll().collectList().block().size();
@@ -296,6 +792,43 @@ class BlogResourceIT {
         assertThat(testBlog.getName()).isEqualTo(UPDATED_NAME);
     }
 
+    @Test
+    void partialUpdateBlogWithStaleVersion() throws Exception {
+        // Initialize the database
+        blogRepository.save(blog).block();
+
+        BlogDTO partialUpdatedBlog = new BlogDTO();
+        partialUpdatedBlog.setId(blog.getId());
+        partialUpdatedBlog.setName(UPDATED_NAME);
+        partialUpdatedBlog.setVersion(0L);
+
+        webTestClient
+            .patch()
+            .uri("/api/blogs")
+            .contentType(MediaType.valueOf("application/merge-patch+json"))
+            .bodyValue(TestUtil.convertObjectToJsonBytes(partialUpdatedBlog))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.name")
+            .isEqualTo(UPDATED_NAME)
+            .jsonPath("$.version")
+            .isEqualTo(1);
+
+        // The same patch is now based on a stale version
+        webTestClient
+            .patch()
+            .uri("/api/blogs")
+            .contentType(MediaType.valueOf("application/merge-patch+json"))
+            .bodyValue(TestUtil.convertObjectToJsonBytes(partialUpdatedBlog))
+            .exchange()
+            .expectStatus()
+            .isEqualTo(HttpStatus.CONFLICT);
+
+        assertThat(blogRepository.findById(blog.getId()).block().getVersion()).isEqualTo(1L);
+    }
+
     @Test
     void partialUpdateBlogShouldThrown() throws Exception {
         // Update the blog without id should throw
@@ -331,4 +864,35 @@ class BlogResourceIT {
         List<Blog> blogList = blogRepository.findAll().collectList().block();
         assertThat(blogList).hasSize(databaseSizeBeforeDelete - 1);
     }
+
+    @Test
+    void bulkDeleteBlogs() {
+        // Initialize the database
+        blogRepository.save(blog).block();
+        Blog otherBlog = blogRepository.save(createEntity(em)).block();
+
+        int databaseSizeBeforeDelete = blogRepository.findAll().collectList().block().size();
+
+        List<BulkResultDTO<BlogDTO>> results = webTestClient
+            .method(HttpMethod.DELETE)
+            .uri("/api/blogs/_bulk")
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .accept(MediaType.APPLICATION_NDJSON)
+            .bodyValue(blog.getId() + "\n" + Long.MAX_VALUE + "\n" + otherBlog.getId() + "\n")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .returnResult(new ParameterizedTypeReference<BulkResultDTO<BlogDTO>>() {})
+            .getResponseBody()
+            .collectList()
+            .block(Duration.ofSeconds(5));
+
+        assertThat(results)
+            .extracting(BulkResultDTO::getStatus)
+            .containsExactly(BulkResultDTO.Status.DELETED, BulkResultDTO.Status.NOT_FOUND, BulkResultDTO.Status.DELETED);
+
+        // Validate the database contains two less items
+        List<Blog> blogList = blogRepository.findAll().collectList().block();
+        assertThat(blogList).hasSize(databaseSizeBeforeDelete - 2);
+    }
 }
@@ -65,6 +65,52 @@ class PublicUserResourceIT {
         assertThat(foundUser.getLogin()).isEqualTo(DEFAULT_LOGIN);
     }
 
+    @Test
+    void getAllPublicUsersNotModified() {
+        // Initialize the database
+        userRepository.save(user).block();
+
+        String eTag = webTestClient
+            .get()
+            .uri("/api/users?sort=id,DESC")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .returnResult()
+            .getResponseHeaders()
+            .getETag();
+        assertThat(eTag).isNotNull();
+
+        webTestClient
+            .get()
+            .uri("/api/users?sort=id,DESC")
+            .accept(MediaType.APPLICATION_JSON)
+            .ifNoneMatch(eTag)
+            .exchange()
+            .expectStatus()
+            .isNotModified()
+            .expectBody()
+            .isEmpty();
+
+        // The tag of the page changes with the logins of its users
+        user.setLogin("renamed" + DEFAULT_LOGIN);
+        userRepository.save(user).block();
+
+        webTestClient
+            .get()
+            .uri("/api/users?sort=id,DESC")
+            .accept(MediaType.APPLICATION_JSON)
+            .ifNoneMatch(eTag)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$[0].login")
+            .isEqualTo("renamed" + DEFAULT_LOGIN);
+    }
+
     @Test
     void getAllAuthorities() {
         webTestClient
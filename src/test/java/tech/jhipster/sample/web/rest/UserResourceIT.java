@@ -2,6 +2,7 @@ package tech.jhipster.sample.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.net.URI;
 import java.time.Instant;
 import java.util.*;
 import java.util.function.Consumer;
@@ -10,10 +11,13 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import tech.jhipster.sample.IntegrationTest;
+import tech.jhipster.sample.config.ApplicationProperties;
 import tech.jhipster.sample.config.Constants;
 import tech.jhipster.sample.domain.Authority;
 import tech.jhipster.sample.domain.User;
@@ -68,6 +72,9 @@ class UserResourceIT {
     @Autowired
     private WebTestClient webTestClient;
 
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
     private User user;
 
     /**
@@ -278,6 +285,99 @@ class UserResourceIT {
         assertThat(foundUser.getLangKey()).isEqualTo(DEFAULT_LANGKEY);
     }
 
+    @Test
+    void getAllUsersWithServerTiming() {
+        // Initialize the database
+        userRepository.save(user).block();
+
+        ApplicationProperties.Database.QueryBudget queryBudget = applicationProperties.getDatabase().getQueryBudget();
+        queryBudget.setServerTiming(true);
+        try {
+            String serverTiming = webTestClient
+                .get()
+                .uri("/api/admin/users?sort=id,DESC")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(AdminUserDTO.class)
+                .getResponseHeaders()
+                .getFirst("Server-Timing");
+            assertThat(serverTiming).matches("db;dur=[0-9.]+;desc=\"[1-9][0-9]* statements, [1-9][0-9]* rows\"");
+        } finally {
+            queryBudget.setServerTiming(false);
+        }
+    }
+
+    @Test
+    void getAllUsersOverQueryBudget() {
+        // Initialize the database
+        userRepository.save(user).block();
+
+        ApplicationProperties.Database.QueryBudget queryBudget = applicationProperties.getDatabase().getQueryBudget();
+        int maxStatements = queryBudget.getMaxStatements();
+        queryBudget.setMaxStatements(1);
+        try {
+            webTestClient
+                .get()
+                .uri("/api/admin/users?sort=id,DESC")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .is5xxServerError();
+        } finally {
+            queryBudget.setMaxStatements(maxStatements);
+        }
+    }
+
+    @Test
+    void getAllUsersByKeyset() {
+        // Initialize the database
+        for (String login : Arrays.asList("keyset-c", "keyset-a", "keyset-b")) {
+            User keysetUser = createEntity(em);
+            keysetUser.setLogin(login);
+            userRepository.save(keysetUser).block();
+        }
+
+        // Get the first page, and follow the link to the next one
+        EntityExchangeResult<List<AdminUserDTO>> firstPage = webTestClient
+            .get()
+            .uri("/api/admin/users?after=&size=2&sort=login,asc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBodyList(AdminUserDTO.class)
+            .returnResult();
+        assertThat(firstPage.getResponseBody()).extracting(AdminUserDTO::getLogin).containsExactly("keyset-a", "keyset-b");
+        String next = firstPage.getResponseHeaders().getFirst(HttpHeaders.LINK);
+        assertThat(next).endsWith("; rel=\"next\"");
+
+        webTestClient
+            .get()
+            .uri(URI.create(next.substring(1, next.indexOf('>'))))
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .doesNotExist(HttpHeaders.LINK)
+            .expectBody()
+            .jsonPath("$.[*].login")
+            .isEqualTo("keyset-c");
+    }
+
+    @Test
+    void getAllUsersByKeysetSortedOnNullableProperty() {
+        webTestClient
+            .get()
+            .uri("/api/admin/users?after=&sort=email,asc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+    }
+
     @Test
     void getUser() {
         // Initialize the database
@@ -1,5 +1,6 @@
 package tech.jhipster.sample.web.rest.errors;
 
+import java.util.concurrent.RejectedExecutionException;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.springframework.dao.ConcurrencyFailureException;
@@ -17,6 +18,11 @@ public class ExceptionTranslatorTestController {
         throw new ConcurrencyFailureException("test concurrency failure");
     }
 
+    @GetMapping("/rejected-execution")
+    public void rejectedExecution() {
+        throw new RejectedExecutionException("test rejected execution");
+    }
+
     @PostMapping("/method-argument")
     public void methodArgument(@Valid @RequestBody TestDTO testDTO) {}
 
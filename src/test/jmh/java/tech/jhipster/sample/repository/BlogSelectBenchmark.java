@@ -0,0 +1,153 @@
+package tech.jhipster.sample.repository;
+
+import io.r2dbc.spi.ConnectionFactories;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.convert.CustomConversions;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.convert.MappingR2dbcConverter;
+import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.dialect.PostgresDialect;
+import org.springframework.data.r2dbc.mapping.R2dbcMappingContext;
+import org.springframework.data.r2dbc.query.UpdateMapper;
+import org.springframework.data.relational.core.dialect.RenderContextFactory;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.sql.Column;
+import org.springframework.data.relational.core.sql.Conditions;
+import org.springframework.data.relational.core.sql.Expression;
+import org.springframework.data.relational.core.sql.OrderByField;
+import org.springframework.data.relational.core.sql.Select;
+import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoinCondition;
+import org.springframework.data.relational.core.sql.SelectBuilder.SelectOrdered;
+import org.springframework.data.relational.core.sql.Table;
+import org.springframework.data.relational.core.sql.render.SqlRenderer;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.PreparedOperation;
+import tech.jhipster.sample.config.ApplicationProperties;
+import tech.jhipster.sample.domain.Blog;
+import tech.jhipster.sample.service.EntityManager;
+
+/**
+ * Benchmark of {@link EntityManager#createSelect(EntityManager.SelectTemplate, Pageable, Criteria)} on the blog join,
+ * against the previous select, which was built and rendered on every call with the limit, the offset and the criteria
+ * inlined.
+ * <p>
+ * Only the SQL is created, nothing is executed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlogSelectBenchmark {
+
+    private static final Table entityTable = Table.aliased("blog", EntityManager.ENTITY_ALIAS);
+    private static final Table userTable = Table.aliased("jhi_user", "e_user");
+
+    private static final EntityManager.SelectTemplate selectWithUser = new EntityManager.SelectTemplate(
+        Blog.class,
+        entityTable,
+        BlogSelectBenchmark::selectWithUser
+    );
+
+    private final Pageable pageable = PageRequest.of(3, 20, Sort.by(Sort.Order.desc("id")));
+
+    private final Criteria criteria = Criteria.where("name").is("blog");
+
+    private EntityManager entityManager;
+
+    private UpdateMapper updateMapper;
+
+    private MappingR2dbcConverter converter;
+
+    @Setup
+    public void setUp() {
+        PostgresDialect dialect = PostgresDialect.INSTANCE;
+        List<Object> converters = new ArrayList<>(dialect.getConverters());
+        converters.addAll(R2dbcCustomConversions.STORE_CONVERTERS);
+        R2dbcCustomConversions conversions = new R2dbcCustomConversions(
+            CustomConversions.StoreConversions.of(dialect.getSimpleTypeHolder(), converters),
+            Collections.emptyList()
+        );
+        R2dbcMappingContext mappingContext = new R2dbcMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        converter = new MappingR2dbcConverter(mappingContext, conversions);
+        updateMapper = new UpdateMapper(dialect, converter);
+        // the connections are never opened, the statements are only created
+        DatabaseClient db = DatabaseClient.create(ConnectionFactories.get("r2dbc:h2:mem:///" + UUID.randomUUID()));
+        entityManager =
+            new EntityManager(
+                SqlRenderer.create(new RenderContextFactory(dialect).createRenderContext()),
+                updateMapper,
+                new R2dbcEntityTemplate(db, dialect, converter),
+                dialect,
+                new ApplicationProperties()
+            );
+    }
+
+    private static SelectFromAndJoinCondition selectWithUser() {
+        List<Expression> columns = BlogSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
+        columns.addAll(UserSqlHelper.getColumns(userTable, "user"));
+        return Select
+            .builder()
+            .select(columns)
+            .from(entityTable)
+            .leftOuterJoin(userTable)
+            .on(Column.create("user_id", entityTable))
+            .equals(Column.create("id", userTable));
+    }
+
+    @Benchmark
+    public PreparedOperation<String> cachedPage() {
+        return entityManager.createSelect(selectWithUser, pageable, null);
+    }
+
+    @Benchmark
+    public PreparedOperation<String> cachedPageWithCriteria() {
+        return entityManager.createSelect(selectWithUser, pageable, criteria);
+    }
+
+    @Benchmark
+    public String renderedPage() {
+        return renderSelect(selectWithUser(), pageable, null);
+    }
+
+    @Benchmark
+    public String renderedPageWithCriteria() {
+        return renderSelect(selectWithUser(), pageable, criteria);
+    }
+
+    // the select before it was cached by template
+    private String renderSelect(SelectFromAndJoinCondition selectFrom, Pageable pageable, Criteria criteria) {
+        SelectOrdered select = criteria != null
+            ? selectFrom.limitOffset(pageable.getPageSize(), pageable.getOffset()).where(Conditions.just(criteria.toString()))
+            : selectFrom.limitOffset(pageable.getPageSize(), pageable.getOffset());
+        RelationalPersistentEntity<?> entity = converter.getMappingContext().getRequiredPersistentEntity(Blog.class);
+        Sort sort = updateMapper.getMappedObject(pageable.getSort(), entity);
+        Table table = Table.create(entity.getTableName()).as(EntityManager.ENTITY_ALIAS);
+        List<OrderByField> fields = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            OrderByField field = OrderByField.from(table.column(order.getProperty()).as(EntityManager.ALIAS_PREFIX + order.getProperty()));
+            fields.add(order.isAscending() ? field.asc() : field.desc());
+        }
+        return entityManager.createSelect(select.orderBy(fields).build());
+    }
+}
@@ -0,0 +1,184 @@
+package tech.jhipster.sample.repository.rowmapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.convert.CustomConversions;
+import org.springframework.data.r2dbc.convert.MappingR2dbcConverter;
+import org.springframework.data.r2dbc.convert.R2dbcConverter;
+import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
+import org.springframework.data.r2dbc.dialect.H2Dialect;
+import org.springframework.data.r2dbc.mapping.R2dbcMappingContext;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+import tech.jhipster.sample.config.DatabaseConfiguration;
+import tech.jhipster.sample.domain.User;
+import tech.jhipster.sample.service.ColumnConverter;
+
+/**
+ * Benchmark of the {@link UserRowMapper}, against the reflective mapping of Spring Data and the previous mapper, which
+ * read every column by name through {@link ColumnConverter#fromRow}.
+ * <p>
+ * The rows are read once from an in-memory H2 database, so only their mapping is measured. Run with {@code -prof gc}
+ * for the allocations by row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserRowMapperBenchmark {
+
+    private static final int ROWS = 100;
+
+    private UserRowMapper userRowMapper;
+
+    private R2dbcConverter r2dbcConverter;
+
+    private ColumnConverter columnConverter;
+
+    private List<Row> rows;
+
+    private RowMetadata metadata;
+
+    private List<Row> prefixedRows;
+
+    private RowMetadata prefixedMetadata;
+
+    @Setup
+    public void setUp() {
+        List<Object> converters = new ArrayList<>(H2Dialect.INSTANCE.getConverters());
+        converters.add(DatabaseConfiguration.InstantReadConverter.INSTANCE);
+        converters.add(DatabaseConfiguration.InstantWriteConverter.INSTANCE);
+        converters.addAll(R2dbcCustomConversions.STORE_CONVERTERS);
+        R2dbcCustomConversions conversions = new R2dbcCustomConversions(
+            CustomConversions.StoreConversions.of(H2Dialect.INSTANCE.getSimpleTypeHolder(), converters),
+            Collections.emptyList()
+        );
+        R2dbcMappingContext mappingContext = new R2dbcMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        r2dbcConverter = new MappingR2dbcConverter(mappingContext, conversions);
+        columnConverter = new ColumnConverter(conversions, r2dbcConverter, new SimpleMeterRegistry());
+        userRowMapper = new UserRowMapper(columnConverter);
+
+        ConnectionFactory connectionFactory = ConnectionFactories.get("r2dbc:h2:mem:///" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        DatabaseClient db = DatabaseClient.create(connectionFactory);
+        db
+            .sql(
+                "CREATE TABLE jhi_user (id BIGINT PRIMARY KEY, login VARCHAR(50), password_hash VARCHAR(60), first_name VARCHAR(50), " +
+                "last_name VARCHAR(50), email VARCHAR(191), image_url VARCHAR(256), activated BOOLEAN, lang_key VARCHAR(10), " +
+                "activation_key VARCHAR(20), reset_key VARCHAR(20), created_by VARCHAR(50), created_date TIMESTAMP, " +
+                "reset_date TIMESTAMP, last_modified_by VARCHAR(50), last_modified_date TIMESTAMP)"
+            )
+            .then()
+            .block();
+        for (long id = 1; id <= ROWS; id++) {
+            db
+                .sql(
+                    "INSERT INTO jhi_user VALUES (:id, :login, :password, 'first', 'last', :email, NULL, TRUE, 'en', NULL, NULL, " +
+                    "'system', :date, :date, 'system', :date)"
+                )
+                .bind("id", id)
+                .bind("login", "user-" + id)
+                .bind("password", "$2a$10$VEjxo0jq2YG9Rbk2HmX9S.k1uZBGYUHdUcid3g/vfiEl7lwWgOH/K")
+                .bind("email", "user-" + id + "@localhost")
+                .bind("date", LocalDateTime.now())
+                .then()
+                .block();
+        }
+
+        Tuple2<List<Row>, RowMetadata> result = read(db, "SELECT * FROM jhi_user");
+        rows = result.getT1();
+        metadata = result.getT2();
+        // the columns read by the previous mapper, aliased as in the blog join
+        Tuple2<List<Row>, RowMetadata> prefixedResult = read(
+            db,
+            "SELECT id AS u_id, login AS u_login, password_hash AS u_password, first_name AS u_first_name, " +
+            "last_name AS u_last_name, email AS u_email, activated AS u_activated, lang_key AS u_lang_key, " +
+            "image_url AS u_image_url, activation_key AS u_activation_key, reset_key AS u_reset_key, reset_date AS u_reset_date " +
+            "FROM jhi_user"
+        );
+        prefixedRows = prefixedResult.getT1();
+        prefixedMetadata = prefixedResult.getT2();
+    }
+
+    private static Tuple2<List<Row>, RowMetadata> read(DatabaseClient db, String sql) {
+        List<Tuple2<Row, RowMetadata>> result = db.sql(sql + " ORDER BY id").map(Tuples::of).all().collectList().block();
+        List<Row> resultRows = new ArrayList<>(result.size());
+        result.forEach(row -> resultRows.add(row.getT1()));
+        return Tuples.of(resultRows, result.get(0).getT2());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void userRowMapper(Blackhole blackhole) {
+        for (Row row : rows) {
+            blackhole.consume(userRowMapper.apply(row, metadata, null));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void userRowMapperWithPrefix(Blackhole blackhole) {
+        for (Row row : prefixedRows) {
+            blackhole.consume(userRowMapper.apply(row, prefixedMetadata, "u"));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void r2dbcConverterRead(Blackhole blackhole) {
+        for (Row row : rows) {
+            blackhole.consume(r2dbcConverter.read(User.class, row, metadata));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void columnConverterFromRow(Blackhole blackhole) {
+        for (Row row : prefixedRows) {
+            blackhole.consume(fromRow(row, "u"));
+        }
+    }
+
+    // the mapper before the columns were read by index
+    private User fromRow(Row row, String prefix) {
+        User entity = new User();
+        entity.setId(row.get(prefix + "_id", Long.class));
+        entity.setLogin(columnConverter.fromRow(row, prefix + "_login", String.class));
+        entity.setPassword(columnConverter.fromRow(row, prefix + "_password", String.class));
+        entity.setFirstName(columnConverter.fromRow(row, prefix + "_first_name", String.class));
+        entity.setLastName(columnConverter.fromRow(row, prefix + "_last_name", String.class));
+        entity.setEmail(columnConverter.fromRow(row, prefix + "_email", String.class));
+        entity.setActivated(Boolean.TRUE.equals(columnConverter.fromRow(row, prefix + "_activated", Boolean.class)));
+        entity.setLangKey(columnConverter.fromRow(row, prefix + "_lang_key", String.class));
+        entity.setImageUrl(columnConverter.fromRow(row, prefix + "_image_url", String.class));
+        entity.setActivationKey(columnConverter.fromRow(row, prefix + "_activation_key", String.class));
+        entity.setResetKey(columnConverter.fromRow(row, prefix + "_reset_key", String.class));
+        entity.setResetDate(columnConverter.fromRow(row, prefix + "_reset_date", Instant.class));
+        return entity;
+    }
+}